@@ -1,4 +1,4 @@
-import db.DataBaseWrapper;
+import db.NotificationStore;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
@@ -11,8 +11,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
@@ -35,14 +34,17 @@ import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.AbstractTableModel;
 import logger.Logger;
+import scheduling.TaskScope;
 import structures.NotificationInfo;
+import structures.Recurrence;
 import web.Client;
 
 public class AppWindow extends JFrame {
-  private final DataBaseWrapper db;
+  private final NotificationStore db;
   private final Clock clock;
   private Thread clockThread;
-  private final ExecutorService worker = Executors.newSingleThreadExecutor();
+  private boolean shuttingDown;
+  private final TaskScope worker;
 
   private final JTextField hostField = new JTextField("127.0.0.1", 12);
   private final JSpinner portSpinner = new JSpinner(new SpinnerNumberModel(1488, 1, 65535, 1));
@@ -56,6 +58,7 @@ public class AppWindow extends JFrame {
   private final JTextField titleField = new JTextField(18);
   private final JTextField payloadField = new JTextField(18);
   private final JSpinner delaySpinner = new JSpinner(new SpinnerNumberModel(30, 0, 86_400, 5));
+  private final JTextField recurrenceField = new JTextField(10);
   private final JCheckBox sendToWebCheckBox = new JCheckBox("Send to server", true);
   private final JCheckBox adminDeleteCheckBox = new JCheckBox("Use admin endpoint");
 
@@ -68,13 +71,16 @@ public class AppWindow extends JFrame {
   private final JTable notificationsTable = new JTable(tableModel);
   private final JTextArea logArea = new JTextArea(5, 20);
 
+  private static final long CLOCK_STOP_TIMEOUT_MILLIS = 20_000;
+  private static final long WORKER_STOP_TIMEOUT_MILLIS = 2_000;
   private static final DateTimeFormatter FIRE_AT_FORMATTER =
       DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
 
-  public AppWindow(DataBaseWrapper db, Clock clock) {
+  public AppWindow(NotificationStore db, Clock clock) {
     super("Notification Client");
     this.db = db;
     this.clock = clock;
+    this.worker = new TaskScope("ui-worker", clock.getExecutionMode(), 1, WORKER_STOP_TIMEOUT_MILLIS);
 
     setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
     setMinimumSize(new Dimension(980, 680));
@@ -166,6 +172,10 @@ public class AppWindow extends JFrame {
     form.add(new JLabel("Delay (sec):"));
     delaySpinner.setPreferredSize(new Dimension(90, 26));
     form.add(delaySpinner);
+    form.add(new JLabel("Repeat:"));
+    recurrenceField.setToolTipText("every:1d, every:30m or cron:0 9 * * 1-5; empty for one-shot");
+    recurrenceField.setPreferredSize(new Dimension(120, 26));
+    form.add(recurrenceField);
     form.add(sendToWebCheckBox);
     JButton addButton = new JButton("Add notification");
     addButton.addActionListener(e -> handleAddNotification());
@@ -284,18 +294,26 @@ public class AppWindow extends JFrame {
     String payload = payloadField.getText().trim();
     long delaySeconds = ((Number) delaySpinner.getValue()).longValue();
     boolean sendToWeb = sendToWebCheckBox.isSelected();
+    String recurrence = recurrenceField.getText().trim();
 
     if (title.isBlank()) {
       showError("Title is required to create a notification.");
       return;
     }
+    try {
+      Recurrence.parse(recurrence);
+    } catch (IllegalArgumentException e) {
+      showError("Invalid repeat rule: " + e.getMessage());
+      return;
+    }
 
     runAsync(
         "add notification",
         () -> {
           long fireAt = (System.currentTimeMillis() / 1000L) + delaySeconds;
           NotificationInfo info =
-              new NotificationInfo(0, 0, title, payload.isBlank() ? null : payload, fireAt);
+              new NotificationInfo(
+                  0, 0, title, payload.isBlank() ? null : payload, fireAt, recurrence);
           if (sendToWeb) {
             List<String> statuses = Client.sendNotification(info);
             if (statuses.isEmpty()) {
@@ -311,6 +329,7 @@ public class AppWindow extends JFrame {
           titleField.setText("");
           payloadField.setText("");
           delaySpinner.setValue(30);
+          recurrenceField.setText("");
         });
   }
 
@@ -437,15 +456,19 @@ public class AppWindow extends JFrame {
   }
 
   private void runAsync(String label, Runnable task) {
-    worker.submit(
-        () -> {
-          try {
-            task.run();
-          } catch (Exception ex) {
-            Logger.error("Task '" + label + "' failed: " + ex.getMessage());
-            showError("Operation failed: " + ex.getMessage());
-          }
-        });
+    try {
+      worker.fork(
+          () -> {
+            try {
+              task.run();
+            } catch (Exception ex) {
+              Logger.error("Task '" + label + "' failed: " + ex.getMessage());
+              showError("Operation failed: " + ex.getMessage());
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      Logger.warn("Task '" + label + "' rejected: window is closing.");
+    }
   }
 
   private void startClockIfNeeded() {
@@ -453,37 +476,61 @@ public class AppWindow extends JFrame {
       if (clockThread != null && clockThread.isAlive()) {
         return;
       }
-      clockThread =
-          new Thread(
-              () -> {
-                try {
-                  clock.NotifyingCylce(db);
-                } catch (InterruptedException e) {
-                  Thread.currentThread().interrupt();
-                }
-              },
-              "notification-clock");
-      clockThread.setDaemon(true);
+      clockThread = clock.newThread(db);
       clockThread.start();
       updateClockState("Clock running");
     }
   }
 
-  private void stopClock() {
+  /** @return {@code true}, якщо потоку годинника немає або він завершився за тайм-аут */
+  private boolean stopClock() {
+    Thread stopping;
     synchronized (this) {
-      if (clockThread != null) {
-        clock.stop();
-        clockThread.interrupt();
-        clockThread = null;
-        updateClockState("Clock stopped");
+      if (clockThread == null) {
+        return true;
       }
+      clock.stop();
+      clockThread.interrupt();
+      stopping = clockThread;
+      clockThread = null;
+      updateClockState("Clock stopped");
     }
+    try {
+      stopping.join(CLOCK_STOP_TIMEOUT_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return !stopping.isAlive();
   }
 
+  /**
+   * Зупиняє годинник і закриває сховище в окремому потоці: очікування на потік годинника не
+   * заморожує EDT. Поки годинник не завершився, його finally ще пише у сховище, тож тоді база
+   * лишається відкритою.
+   */
   private void shutdown() {
-    stopClock();
-    worker.shutdownNow();
-    db.closeDb();
+    synchronized (this) {
+      if (shuttingDown) {
+        return;
+      }
+      shuttingDown = true;
+    }
+    Thread thread =
+        new Thread(
+            () -> {
+              boolean stopped = stopClock();
+              worker.close();
+              if (stopped) {
+                db.closeDb();
+              } else {
+                Logger.warn(
+                    "Clock thread did not stop within "
+                        + CLOCK_STOP_TIMEOUT_MILLIS
+                        + " ms, leaving the database open.");
+              }
+            },
+            "app-shutdown");
+    thread.start();
   }
 
   private void updateAuthState(String text, boolean success) {
@@ -532,7 +579,7 @@ public class AppWindow extends JFrame {
     return fireAt < 1_000_000_000_000L ? fireAt * 1000L : fireAt;
   }
 
-  public static void launch(DataBaseWrapper db, Clock clock) {
+  public static void launch(NotificationStore db, Clock clock) {
     SwingUtilities.invokeLater(() -> new AppWindow(db, clock).setVisible(true));
   }
 
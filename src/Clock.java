@@ -1,128 +1,690 @@
-import db.DataBaseWrapper;
-import java.math.BigInteger;
-import java.util.Comparator;
-import java.util.HashSet;
+import db.NotificationStore;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Set;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import logger.Logger;
+import scheduling.AdaptiveSyncPolicy;
+import scheduling.ClockMetrics;
+import scheduling.ExecutionMode;
+import scheduling.FirePipeline;
+import scheduling.IndexedHeapScheduler;
+import scheduling.NotificationScheduler;
+import scheduling.PipelineStage;
+import scheduling.RemoteDeleteBatcher;
+import scheduling.RemoteSyncer;
+import scheduling.RemoteTombstones;
+import scheduling.SchedulerSnapshot;
+import scheduling.TimeSource;
+import sink.NotificationSink;
+import sink.SinkChannel;
+import sink.SinkRouter;
 import structures.NotificationInfo;
-import ui.NotificationPopup;
-import web.Client;
+import web.RemoteApi;
 
 public class Clock {
-  private final PriorityQueue<NotificationInfo> notifications =
-      new PriorityQueue<>(Comparator.comparingLong(NotificationInfo::getFireAt));
-  private final Set<Integer> knownNotificationIds = new HashSet<>();
-  private final int sampleSizeToLoad = 10;
+  public enum CatchUpMode {
+    SUMMARY,
+    RATE_LIMITED
+  }
+
+  private final NotificationScheduler notifications;
+  private final TimeSource time;
+  private volatile RemoteApi remote = RemoteApi.CLIENT;
+  private final Queue<NotificationInfo> incoming = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock wakeLock = new ReentrantLock();
+  private final Condition wakeCondition = wakeLock.newCondition();
+  private boolean wakeRequested = false;
+  private final int windowSize = 50;
+  private final int maxWindowSize = windowSize * 4;
+  private final int inlinePayloadChars = 256;
+  private long cursorFireAt = Long.MIN_VALUE;
+  private int cursorId = Integer.MIN_VALUE;
+  private boolean cursorExhausted = false;
   private volatile boolean isRunning = true;
-  private final int millisecondsToSleep = 500;
-  private final long deltaMillis = 1_000;
-  private final long remoteSyncIntervalMillis = 30_000;
-  private final int minQueueSizeBeforeRemoteSync = 3;
-  private long lastRemoteSyncMillis = 0;
-  private Boolean cachedAdminStatus = null;
+  private final long minRemoteSyncIntervalMillis = 5_000;
+  private final long maxRemoteSyncIntervalMillis = 120_000;
+  private final long remoteSyncLeadMillis = 2_000;
+  private volatile long nextFireAtMillis = Long.MAX_VALUE;
+  private final AtomicBoolean remoteSyncCompleted = new AtomicBoolean();
+  private volatile RemoteSyncer remoteSyncer;
+  private volatile Boolean cachedAdminStatus = null;
+  private volatile FirePipeline pipeline;
+  private final long overdueGraceMillis = 60_000;
+  private volatile CatchUpMode catchUpMode = CatchUpMode.SUMMARY;
+  private volatile int catchUpThreshold = 5;
+  private volatile int catchUpRatePerSecond = 2;
+  private final ArrayDeque<NotificationInfo> catchUpBacklog = new ArrayDeque<>();
+  private long nextCatchUpMillis = 0;
+  private final ClockMetrics metrics = new ClockMetrics();
+  private final long metricsDumpIntervalMillis = 60_000;
+  private volatile List<NotificationSink> sinks = SinkRouter.defaults();
+  private volatile int sinkQueueCapacity = 256;
+  private volatile SinkChannel.OverflowPolicy sinkOverflowPolicy =
+      SinkChannel.OverflowPolicy.DROP_OLDEST;
+  private volatile SinkRouter sinkRouter;
+  private final long sinkCloseTimeoutMillis = 5_000;
+  private volatile ExecutionMode executionMode = ExecutionMode.PLATFORM;
+  private volatile Path snapshotPath = Path.of("clock.snapshot");
+  private final long snapshotIntervalMillis = 300_000;
+  private long nextSnapshotMillis = 0;
+  private volatile RemoteDeleteBatcher deleteBatcher = newDeleteBatcher(false);
+  private final RemoteTombstones tombstones =
+      new RemoteTombstones(webIds -> webIds.forEach(webId -> deleteBatcher.add(webId)));
+
+  public Clock() {
+    this(new IndexedHeapScheduler());
+  }
+
+  public Clock(NotificationScheduler scheduler) {
+    this(scheduler, TimeSource.SYSTEM);
+  }
 
-  public Clock() {}
+  /** @param time джерело часу для всіх рішень планувальника; див. {@code ClockSimulation} */
+  public Clock(NotificationScheduler scheduler, TimeSource time) {
+    this.notifications = scheduler;
+    this.time = time;
+  }
 
   public void Notify(NotificationInfo info) {
-    System.out.println("Notifying: " + info.toString());
-    NotificationPopup.show(info);
+    sinkRouter.deliver(info);
+    metrics.recordFired(time.currentTimeMillis() - info.getFireAtMillis());
+    Logger.info("Notified: " + info.toString());
+  }
+
+  public void NotifySummary(List<NotificationInfo> infos) {
+    sinkRouter.deliverSummary(infos);
+    long now = time.currentTimeMillis();
+    for (NotificationInfo info : infos) {
+      metrics.recordFired(now - info.getFireAtMillis());
+    }
+    Logger.info("Notified summary of " + infos.size() + " overdue notifications.");
+  }
+
+  /**
+   * Налаштовує режим наздоганяння після сну чи простою.
+   *
+   * @param mode зведене вікно або спрацювання з обмеженою швидкістю
+   * @param threshold скільки прострочених записів за прохід вмикають режим
+   * @param ratePerSecond швидкість для {@link CatchUpMode#RATE_LIMITED}
+   */
+  public void configureCatchUp(CatchUpMode mode, int threshold, int ratePerSecond) {
+    this.catchUpMode = mode;
+    this.catchUpThreshold = Math.max(1, threshold);
+    this.catchUpRatePerSecond = Math.max(1, ratePerSecond);
+  }
+
+  /**
+   * Задає приймачі сповіщень; діє з наступного запуску годинника.
+   *
+   * @param capacity розмір черги доставки кожного приймача
+   * @param policy що робити, коли приймач не встигає
+   */
+  public void configureSinks(
+      List<NotificationSink> sinks, int capacity, SinkChannel.OverflowPolicy policy) {
+    this.sinks = List.copyOf(sinks);
+    this.sinkQueueCapacity = Math.max(1, capacity);
+    this.sinkOverflowPolicy = policy;
+  }
+
+  /** Віддалений API для синхронізації та видалень; діє з наступного запуску годинника. */
+  public void setRemoteApi(RemoteApi remote) {
+    this.remote = remote;
+  }
+
+  /** Модель потоків для потоку годинника та віддалених підтверджень; діє з наступного запуску. */
+  public void setExecutionMode(ExecutionMode mode) {
+    this.executionMode = mode;
+  }
+
+  public ExecutionMode getExecutionMode() {
+    return executionMode;
+  }
+
+  /** Створює (не запускає) потік {@code notification-clock} у вибраній моделі виконання. */
+  public Thread newThread(NotificationStore db) {
+    return executionMode.newThread(
+        "notification-clock",
+        () -> {
+          try {
+            NotifyingCylce(db);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Logger.warn("Notification clock interrupted");
+          }
+        });
+  }
+
+  /** Файл знімка для теплого старту; {@code null} вимикає знімки. */
+  public void setSnapshotPath(Path path) {
+    this.snapshotPath = path;
   }
 
   public boolean checkFirstNotification() {
-    NotificationInfo next = notifications.peek();
-    if (next == null) {
-      return false;
+    return notifications.nextFireAtMillis() <= time.currentTimeMillis();
+  }
+
+  public void NotifyingCylce(NotificationStore db) throws InterruptedException {
+    sinkRouter = new SinkRouter(sinks, sinkQueueCapacity, sinkOverflowPolicy, executionMode);
+    deleteBatcher = newDeleteBatcher(false);
+    pipeline =
+        new FirePipeline(
+            this::Notify,
+            this::NotifySummary,
+            batch -> persistFired(db, batch),
+            this::deleteRemoteNotification,
+            executionMode);
+    remoteSyncer = newRemoteSyncer(db);
+    ScheduledExecutorService metricsDumper =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "clock-metrics");
+              thread.setDaemon(true);
+              return thread;
+            });
+    metricsDumper.scheduleAtFixedRate(
+        () -> Logger.info("Clock metrics: " + getMetrics() + ", sinks: " + getSinkStats()),
+        metricsDumpIntervalMillis,
+        metricsDumpIntervalMillis,
+        TimeUnit.MILLISECONDS);
+    try {
+      SchedulerSnapshot snapshot = restoreSnapshot(db);
+      if (snapshot != null) {
+        remoteSyncer.restore(
+            snapshot.lastSyncMillis(), snapshot.syncFingerprint(), snapshot.syncIntervalMillis());
+      }
+      db.setInsertListener(this::enqueue);
+      remoteSyncer.start();
+      while (isRunning) {
+        long wakeAtMillis = runTick(db);
+        awaitUntil(wakeAtMillis);
+      }
+    } finally {
+      db.setInsertListener(null);
+      metricsDumper.shutdownNow();
+      remoteSyncer.stop();
+      pipeline.close();
+      sinkRouter.close(sinkCloseTimeoutMillis);
+      deleteBatcher.close();
+      saveSnapshot(db);
+    }
+  }
+
+  /**
+   * Готує покроковий прогін для симуляції: конвеєр виконується в потоці виклику, потік
+   * синхронізації та знімки не запускаються, а проходи й синхронізації робить сам виклик через
+   * {@link #runTick} і {@link #syncRemoteNow}.
+   */
+  void startSimulation(NotificationStore db) {
+    snapshotPath = null;
+    sinkRouter = new SinkRouter(sinks, sinkQueueCapacity, sinkOverflowPolicy, executionMode);
+    deleteBatcher = newDeleteBatcher(true);
+    pipeline =
+        FirePipeline.inline(
+            this::Notify,
+            this::NotifySummary,
+            batch -> persistFired(db, batch),
+            this::deleteRemoteNotification);
+    remoteSyncer = newRemoteSyncer(db);
+    db.setInsertListener(this::enqueue);
+  }
+
+  /** Синхронізація з сервером у потоці виклику, між проходами симуляції чи тесту. */
+  void syncRemoteNow() {
+    remoteSyncer.syncNow();
+  }
+
+  private RemoteSyncer newRemoteSyncer(NotificationStore db) {
+    RemoteApi api = remote;
+    return new RemoteSyncer(
+        api::fetchNotifications,
+        db,
+        stored -> acceptSynced(db, stored),
+        tombstones,
+        new AdaptiveSyncPolicy(
+            minRemoteSyncIntervalMillis, maxRemoteSyncIntervalMillis, remoteSyncLeadMillis),
+        () -> nextFireAtMillis,
+        minRemoteSyncIntervalMillis);
+  }
+
+  /** webId спрацьованих сповіщень, які ще можуть прийти з сервера. */
+  int tombstoneCount() {
+    return tombstones.size();
+  }
+
+  void finishSimulation(NotificationStore db) {
+    db.setInsertListener(null);
+    pipeline.close();
+    sinkRouter.close(sinkCloseTimeoutMillis);
+    deleteBatcher.close();
+  }
+
+  /**
+   * Одноразові сповіщення видаляє, а повторюваним обчислює лише наступне спрацювання й повертає їх
+   * у чергу. Спрацьовані рядки спершу йдуть в архів сховища, якщо він увімкнений.
+   */
+  private void persistFired(NotificationStore db, List<NotificationInfo> batch) {
+    List<Integer> finished = new ArrayList<>();
+    List<NotificationInfo> rescheduled = new ArrayList<>();
+    long now = time.currentTimeMillis();
+    for (NotificationInfo info : batch) {
+      NotificationInfo next = nextOccurrence(info, now);
+      if (next == null) {
+        finished.add(info.getId());
+      } else {
+        rescheduled.add(next);
+      }
     }
-    long fireAtMillis = normalizeToMillis(next.getFireAt());
-    return fireAtMillis <= System.currentTimeMillis() + deltaMillis;
+    db.archiveFired(batch, now);
+    db.deleteNotifications(finished);
+    db.rescheduleNotifications(rescheduled);
+    rescheduled.forEach(this::enqueue);
+  }
+
+  private static NotificationInfo nextOccurrence(NotificationInfo info, long now) {
+    if (!info.isRecurring()) {
+      return null;
+    }
+    try {
+      return info.nextOccurrence(Math.max(now, info.getFireAtMillis()));
+    } catch (IllegalArgumentException e) {
+      Logger.warn(
+          "Dropping invalid recurrence of notification " + info.getId() + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  /** @param onTicks вікно й повтори за {@link #time}, відправка з {@link #runTick} (симуляція) */
+  private RemoteDeleteBatcher newDeleteBatcher(boolean onTicks) {
+    return onTicks
+        ? RemoteDeleteBatcher.onTicks(
+            this::deleteRemoteNotifications, 100, 500, 8, this::abandonRemoteDeletes, time)
+        : new RemoteDeleteBatcher(
+            this::deleteRemoteNotifications, 100, 500, 8, this::abandonRemoteDeletes);
+  }
+
+  /** Запізнення спрацювань, тривалість проходів, читання БД і стан фонових компонентів. */
+  public ClockMetrics.Snapshot getMetrics() {
+    return metrics.snapshot(getPipelineStats(), getRemoteSyncStats(), getRemoteDeleteStats());
+  }
+
+  /** Глибина черг і пропускна здатність етапів конвеєра спрацювання. */
+  public List<PipelineStage.StageStats> getPipelineStats() {
+    FirePipeline current = pipeline;
+    return current == null ? List.of() : current.stats();
   }
 
-  public void NotifyingCylce(DataBaseWrapper db) throws InterruptedException {
-    BigInteger i = new BigInteger("1");
-    while (isRunning) {
-      syncRemoteNotifications(db);
+  /** Черга, доставлені, невдалі й відкинуті сповіщення для кожного приймача. */
+  public List<SinkChannel.SinkStats> getSinkStats() {
+    SinkRouter current = sinkRouter;
+    return current == null ? List.of() : current.stats();
+  }
+
+  public RemoteDeleteBatcher.Stats getRemoteDeleteStats() {
+    return deleteBatcher.stats();
+  }
+
+  /** Затримка та тривалість синхронізації; {@code null}, поки годинник не запущено. */
+  public RemoteSyncer.SyncStats getRemoteSyncStats() {
+    RemoteSyncer current = remoteSyncer;
+    return current == null ? null : current.stats();
+  }
+
+  /**
+   * Виконує один прохід планувальника: синхронізацію, дозавантаження та спрацювання.
+   *
+   * @return момент (epoch millis), до якого потік може спати
+   */
+  long runTick(NotificationStore db) {
+    long tickStart = System.nanoTime();
+    drainIncoming();
+    addNotificationsFromDB(db);
+
+    List<NotificationInfo> fired = new ArrayList<>();
+    List<NotificationInfo> due;
+    while (!(due = notifications.pollDue(time.currentTimeMillis())).isEmpty()) {
+      fired.addAll(due);
       addNotificationsFromDB(db);
-      while (checkFirstNotification()) {
-        NotificationInfo n = notifications.poll();
-        if (n == null) {
-          break;
-        }
-        knownNotificationIds.remove(n.getId());
-        Notify(n);
-        Logger.info("Notified: " + n.toString());
-        db.deleteNotification(n.getId());
-        deleteRemoteNotification(n);
+    }
+    fired = markFired(db, fired);
+    loadPayloads(db, fired);
+    dispatch(fired, time.currentTimeMillis());
+
+    long previousFireAtMillis = nextFireAtMillis;
+    nextFireAtMillis = notifications.nextFireAtMillis();
+    if (nextFireAtMillis < previousFireAtMillis && remoteSyncer != null) {
+      remoteSyncer.signal();
+    }
+
+    long now = time.currentTimeMillis();
+    RemoteDeleteBatcher batcher = deleteBatcher;
+    batcher.flushDue(now);
+    if (snapshotPath != null && now >= nextSnapshotMillis) {
+      if (nextSnapshotMillis != 0) {
+        saveSnapshot(db);
       }
+      nextSnapshotMillis = now + snapshotIntervalMillis;
+    }
 
-      i = i.add(BigInteger.ONE);
-      Thread.sleep(millisecondsToSleep);
+    long wakeAtMillis = nextFireAtMillis;
+    if (!catchUpBacklog.isEmpty()) {
+      wakeAtMillis = Math.min(wakeAtMillis, nextCatchUpMillis);
     }
+    if (snapshotPath != null) {
+      wakeAtMillis = Math.min(wakeAtMillis, nextSnapshotMillis);
+    }
+    wakeAtMillis = Math.min(wakeAtMillis, batcher.nextFlushAtMillis());
+    metrics.recordTick((System.nanoTime() - tickStart) / 1_000_000, notifications.size());
+    return wakeAtMillis;
   }
 
-  public void addNotificationsFromDB(DataBaseWrapper db) {
-    var newNotifications = db.getEarliestNotifications(sampleSizeToLoad);
-    for (NotificationInfo n : newNotifications) {
-      if (knownNotificationIds.add(n.getId())) {
-        notifications.offer(n);
+  /** Вчасні сповіщення йдуть у конвеєр як є, а завал прострочених — через режим наздоганяння. */
+  private void dispatch(List<NotificationInfo> fired, long now) {
+    List<NotificationInfo> overdue = new ArrayList<>();
+    for (NotificationInfo n : fired) {
+      if (n.getFireAtMillis() < now - overdueGraceMillis) {
+        overdue.add(n);
+      } else {
+        pipeline.submit(n);
       }
     }
+
+    if (!overdue.isEmpty() && overdue.size() < catchUpThreshold && catchUpBacklog.isEmpty()) {
+      overdue.forEach(pipeline::submit);
+    } else if (!overdue.isEmpty()) {
+      Logger.info(
+          "Catching up on " + overdue.size() + " overdue notifications (" + catchUpMode + ")");
+      metrics.recordCatchUp(overdue.size());
+      if (catchUpMode == CatchUpMode.SUMMARY) {
+        pipeline.submitSummary(overdue);
+      } else {
+        catchUpBacklog.addAll(overdue);
+      }
+    }
+
+    long interval = 1_000L / catchUpRatePerSecond;
+    while (!catchUpBacklog.isEmpty() && nextCatchUpMillis <= now) {
+      pipeline.submit(catchUpBacklog.poll());
+      nextCatchUpMillis = Math.max(nextCatchUpMillis, now) + interval;
+    }
   }
 
-  public void stop() {
-    isRunning = false;
+  /**
+   * Відновлює вікно, курсор і адмін-статус зі знімка, якщо таблиця не змінилась з моменту запису.
+   *
+   * @return прийнятий знімок або {@code null} для холодного старту
+   */
+  private SchedulerSnapshot restoreSnapshot(NotificationStore db) {
+    Path path = snapshotPath;
+    if (path == null) {
+      return null;
+    }
+    SchedulerSnapshot snapshot = SchedulerSnapshot.load(path);
+    if (snapshot == null) {
+      return null;
+    }
+    long rowCount = db.countNotifications();
+    long lastInsertedId = db.lastInsertedId();
+    long changeCount = db.changeCount();
+    if (rowCount < 0
+        || changeCount < 0
+        || snapshot.rowCount() != rowCount
+        || snapshot.lastInsertedId() != lastInsertedId
+        || snapshot.changeCount() != changeCount) {
+      Logger.info("Scheduler snapshot is stale, loading notifications from the database.");
+      return null;
+    }
+    for (NotificationInfo n : snapshot.window()) {
+      notifications.schedule(queueEntry(n));
+    }
+    cursorFireAt = snapshot.cursorFireAt();
+    cursorId = snapshot.cursorId();
+    cursorExhausted = snapshot.cursorExhausted();
+    if (snapshot.adminStatus() != null) {
+      cachedAdminStatus = snapshot.adminStatus();
+    }
+    Logger.info(
+        "Restored " + snapshot.window().size() + " scheduled notifications from " + path + ".");
+    return snapshot;
   }
 
-  private long normalizeToMillis(long fireAt) {
-    return fireAt < 1_000_000_000_000L ? fireAt * 1000L : fireAt;
+  /** Викликається лише з потоку годинника: черга планувальника не потокобезпечна. */
+  private void saveSnapshot(NotificationStore db) {
+    Path path = snapshotPath;
+    if (path == null) {
+      return;
+    }
+    long rowCount = db.countNotifications();
+    long lastInsertedId = db.lastInsertedId();
+    long changeCount = db.changeCount();
+    if (rowCount < 0 || lastInsertedId < 0 || changeCount < 0) {
+      return;
+    }
+    drainIncoming();
+    List<NotificationInfo> window = notifications.entries();
+    window.addAll(catchUpBacklog);
+    RemoteSyncer.SyncStats sync = getRemoteSyncStats();
+    new SchedulerSnapshot(
+            time.currentTimeMillis(),
+            rowCount,
+            lastInsertedId,
+            changeCount,
+            window,
+            cursorFireAt,
+            cursorId,
+            cursorExhausted,
+            sync == null ? 0 : sync.lastSuccessMillis(),
+            remoteSyncer == null ? 0 : remoteSyncer.lastFingerprint(),
+            sync == null ? minRemoteSyncIntervalMillis : sync.currentIntervalMillis(),
+            cachedAdminStatus)
+        .save(path);
   }
 
-  private void syncRemoteNotifications(DataBaseWrapper db) {
-    long now = System.currentTimeMillis();
-    boolean queueLow = notifications.size() < minQueueSizeBeforeRemoteSync;
-    if (!queueLow && (now - lastRemoteSyncMillis) < remoteSyncIntervalMillis) {
+  /** Передає нове сповіщення потоку годинника та будить його раніше дедлайну. */
+  public void enqueue(NotificationInfo info) {
+    if (info == null) {
       return;
     }
+    incoming.add(info);
+    wakeUp();
+  }
 
-    lastRemoteSyncMillis = now;
+  public void wakeUp() {
+    wakeLock.lock();
     try {
-      var remoteNotifications = Client.fetchNotifications();
-      for (NotificationInfo remote : remoteNotifications) {
-        NotificationInfo stored = db.upsertNotificationByWebId(remote);
-        if (stored == null) {
-          continue;
-        }
-        if (knownNotificationIds.add(stored.getId())) {
-          notifications.offer(stored);
-        } else if (notifications.removeIf(existing -> existing.getId() == stored.getId())) {
-          notifications.offer(stored);
+      wakeRequested = true;
+      wakeCondition.signalAll();
+    } finally {
+      wakeLock.unlock();
+    }
+  }
+
+  private void awaitUntil(long wakeAtMillis) throws InterruptedException {
+    wakeLock.lock();
+    try {
+      while (isRunning && !wakeRequested) {
+        long remaining = wakeAtMillis - time.currentTimeMillis();
+        if (remaining <= 0) {
+          break;
         }
+        wakeCondition.await(remaining, TimeUnit.MILLISECONDS);
+      }
+      wakeRequested = false;
+    } finally {
+      wakeLock.unlock();
+    }
+  }
+
+  private void drainIncoming() {
+    NotificationInfo n;
+    while ((n = incoming.poll()) != null) {
+      admit(n);
+    }
+    if (remoteSyncCompleted.getAndSet(false)) {
+      cursorExhausted = false;
+    }
+  }
+
+  /**
+   * Викликається з потоку синхронізації: лише кладе рядки в чергу та будить годинник. Рядки вже
+   * спрацьованих сповіщень, які синхронізація встигла вставити до віддаленого видалення,
+   * видаляються з БД, а не плануються вдруге.
+   */
+  private void acceptSynced(NotificationStore db, List<NotificationInfo> stored) {
+    List<NotificationInfo> resurrected = new ArrayList<>();
+    incoming.addAll(tombstones.withoutFired(stored, resurrected));
+    deleteResurrected(db, resurrected);
+    remoteSyncCompleted.set(true);
+    wakeUp();
+  }
+
+  /**
+   * Позначає одноразові сповіщення з webId як спрацьовані до видалення локального рядка. Якщо
+   * webId уже спрацював, рядок — повторна вставка з сервера: його прибирає, а не показує.
+   */
+  private List<NotificationInfo> markFired(NotificationStore db, List<NotificationInfo> due) {
+    List<NotificationInfo> firing = new ArrayList<>(due.size());
+    List<NotificationInfo> resurrected = new ArrayList<>();
+    for (NotificationInfo n : due) {
+      if (n.getWebId() <= 0 || n.isRecurring() || tombstones.add(n.getWebId())) {
+        firing.add(n);
+      } else {
+        resurrected.add(n);
       }
-      Logger.info("Remote sync loaded " + remoteNotifications.size() + " notifications.");
-    } catch (IllegalStateException e) {
-      Logger.warn("Skipping remote sync: " + e.getMessage());
     }
+    deleteResurrected(db, resurrected);
+    return firing;
   }
 
+  private static void deleteResurrected(NotificationStore db, List<NotificationInfo> rows) {
+    if (rows.isEmpty()) {
+      return;
+    }
+    List<Integer> ids = new ArrayList<>(rows.size());
+    for (NotificationInfo n : rows) {
+      ids.add(n.getId());
+    }
+    Logger.info("Dropping " + ids.size() + " already fired notifications re-synced from server.");
+    db.deleteNotifications(ids);
+  }
+
+  /**
+   * Догортає keyset-курсор {@code (fire_at, id)}, поки вікно не заповниться наполовину.
+   *
+   * <p>У черзі тримаються лише рядки до курсора, тож уже завантажені записи повторно не читаються.
+   */
+  public void addNotificationsFromDB(NotificationStore db) {
+    while (!cursorExhausted && notifications.size() < windowSize / 2) {
+      int pageSize = windowSize - notifications.size();
+      var page = db.getNotificationsAfter(cursorFireAt, cursorId, pageSize);
+      metrics.recordDbPage(page.size());
+      for (NotificationInfo n : page) {
+        notifications.schedule(queueEntry(n));
+        moveCursor(n);
+      }
+      if (page.size() < pageSize) {
+        cursorExhausted = true;
+      }
+    }
+  }
+
+  /** Планує змінений чи новий рядок, якщо він потрапляє у вікно; інакше його підтягне курсор. */
+  private void admit(NotificationInfo n) {
+    if (!cursorExhausted && compareToCursor(n) > 0) {
+      notifications.cancel(n.getId());
+      return;
+    }
+    notifications.schedule(queueEntry(n));
+    if (cursorExhausted) {
+      moveCursor(n);
+      if (notifications.size() >= maxWindowSize) {
+        cursorExhausted = false;
+      }
+    }
+  }
+
+  /**
+   * Великий payload у черзі не тримається: запис лишає решту полів, а payload дочитує {@link
+   * #loadPayloads} лише для тих, що спрацювали.
+   */
+  private NotificationInfo queueEntry(NotificationInfo n) {
+    String payload = n.getPayload();
+    return payload != null && payload.length() > inlinePayloadChars ? n.withoutPayload() : n;
+  }
+
+  /** Одним зверненням до сховища повертає payload спрацьованим легким записам черги. */
+  private static void loadPayloads(NotificationStore db, List<NotificationInfo> fired) {
+    List<Integer> ids = new ArrayList<>();
+    for (NotificationInfo n : fired) {
+      if (n.isPayloadDeferred()) {
+        ids.add(n.getId());
+      }
+    }
+    if (ids.isEmpty()) {
+      return;
+    }
+    Map<Integer, String> payloads = db.getPayloads(ids);
+    for (NotificationInfo n : fired) {
+      if (n.isPayloadDeferred()) {
+        n.setPayload(payloads.get(n.getId()));
+      }
+    }
+  }
+
+  private int compareToCursor(NotificationInfo n) {
+    int byFireAt = Long.compare(n.getFireAt(), cursorFireAt);
+    return byFireAt != 0 ? byFireAt : Integer.compare(n.getId(), cursorId);
+  }
+
+  private void moveCursor(NotificationInfo n) {
+    if (compareToCursor(n) > 0) {
+      cursorFireAt = n.getFireAt();
+      cursorId = n.getId();
+    }
+  }
+
+  public void stop() {
+    isRunning = false;
+    wakeUp();
+  }
+
+  /** Повторюване правило лишається на сервері: воно спрацює знову. */
   private void deleteRemoteNotification(NotificationInfo info) {
-    if (info.getWebId() == -1) {
+    if (info.getWebId() <= 0 || info.isRecurring()) {
       return;
     }
-    int webId = info.getWebId();
+    deleteBatcher.add(info.getWebId());
+  }
+
+  /** Рядки лишилися на сервері: наступна синхронізація, що їх побачить, видалить їх знову. */
+  private void abandonRemoteDeletes(List<Integer> webIds) {
+    tombstones.abandon(webIds);
+  }
 
+  private boolean deleteRemoteNotifications(List<Integer> webIds) {
     try {
-      boolean deleted = Client.deleteNotifications(List.of(webId), false);
+      boolean deleted = remote.deleteNotifications(webIds, false);
       if (!deleted && isAdmin()) {
-        deleted = Client.deleteNotifications(List.of(webId), true);
+        deleted = remote.deleteNotifications(webIds, true);
       }
       if (deleted) {
-        Logger.info("Deleted remote notification webId=" + webId);
+        tombstones.acknowledge(webIds);
       } else {
-        Logger.warn("Failed to delete remote notification webId=" + webId);
+        Logger.warn("Failed to delete remote notifications webIds=" + webIds);
       }
+      return deleted;
     } catch (IllegalStateException e) {
-      Logger.warn("Cannot delete remote notification webId=" + webId + ": " + e.getMessage());
+      Logger.warn("Cannot delete remote notifications webIds=" + webIds + ": " + e.getMessage());
+      return false;
     }
   }
 
@@ -131,7 +693,7 @@ public class Clock {
       return Boolean.TRUE.equals(cachedAdminStatus);
     }
     try {
-      cachedAdminStatus = Client.fetchAdminStatus();
+      cachedAdminStatus = remote.fetchAdminStatus();
     } catch (IllegalStateException e) {
       Logger.warn("Cannot fetch admin status: " + e.getMessage());
       cachedAdminStatus = Boolean.FALSE;
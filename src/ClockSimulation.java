@@ -0,0 +1,327 @@
+import db.NotificationStore;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import logger.Logger;
+import scheduling.ManualTimeSource;
+import scheduling.NotificationScheduler;
+import sink.SinkChannel;
+import structures.NotificationInfo;
+import web.RemoteApi;
+
+/**
+ * Детермінований прогін {@code Clock} у віртуальному часі.
+ *
+ * <p>Половина потоку записів лежить у базі до старту, решта додається під час прогону в момент
+ * свого {@code createdAt}. Між проходами годинник не спить: час одразу перескакує до наступного
+ * дедлайну чи надходження, тож дні віртуального часу проходять за секунди. У кінці друкуються
+ * запізнення, кількість проходів, звернень до БД і віддалених викликів.
+ *
+ * <pre>
+ * java -cp "lib/sqlite-jdbc.jar:src" ClockSimulation --count=1000000 --days=7 --seed=42
+ * java -cp "lib/sqlite-jdbc.jar:src" ClockSimulation --replay=stream.csv --scheduler=wheel
+ * java -cp src ClockSimulation --storage=memory
+ * </pre>
+ *
+ * <p>Формат {@code --replay}: рядки {@code createdAtMillis,fireAtSeconds,title}.
+ */
+public class ClockSimulation {
+  private static final long START_MILLIS = 1_700_000_000_000L;
+
+  private final long[] createdAt;
+  private final long[] fireAt;
+  private final String[] titles;
+
+  private ClockSimulation(long[] createdAt, long[] fireAt, String[] titles) {
+    this.createdAt = createdAt;
+    this.fireAt = fireAt;
+    this.titles = titles;
+  }
+
+  public static void main(String[] args) throws IOException {
+    String replay = Main.optionValue(args, "--replay");
+    String count = Main.optionValue(args, "--count");
+    String days = Main.optionValue(args, "--days");
+    String seed = Main.optionValue(args, "--seed");
+    String url = Main.optionValue(args, "--db");
+    String storage = Main.optionValue(args, "--storage");
+
+    ClockSimulation simulation =
+        replay != null
+            ? load(Path.of(replay))
+            : generate(
+                count == null ? 100_000 : Integer.parseInt(count),
+                days == null ? 7 : Integer.parseInt(days),
+                seed == null ? 42 : Long.parseLong(seed));
+
+    Logger.setOutput(Logger.OutputType.NONE);
+    CountingStore db =
+        new CountingStore(
+            NotificationStore.create(
+                storage != null
+                    ? storage
+                    : "sqlite:" + (url == null ? "jdbc:sqlite::memory:" : url)));
+    db.makeDb();
+    CountingRemoteApi remote = new CountingRemoteApi();
+    ManualTimeSource time = new ManualTimeSource(START_MILLIS);
+    Clock clock =
+        new Clock(NotificationScheduler.create(Main.optionValue(args, "--scheduler")), time);
+    clock.configureSinks(List.of(), 1, SinkChannel.OverflowPolicy.DROP_NEWEST);
+    clock.setRemoteApi(remote);
+
+    simulation.run(clock, db, remote, time);
+  }
+
+  private void run(
+      Clock clock, CountingStore db, CountingRemoteApi remote, ManualTimeSource time) {
+    int total = createdAt.length;
+    int next = 0;
+    while (next < total && createdAt[next] <= START_MILLIS) {
+      db.addNotification(notification(next++));
+    }
+    int preloaded = next;
+    db.resetCounters();
+
+    long wallStart = System.nanoTime();
+    clock.startSimulation(db);
+    long ticks = 0;
+    while (true) {
+      long wakeAtMillis = clock.runTick(db);
+      ticks++;
+      long nextArrival = next < total ? createdAt[next] : Long.MAX_VALUE;
+      long target = Math.min(wakeAtMillis, nextArrival);
+      if (target == Long.MAX_VALUE) {
+        break;
+      }
+      long now = time.currentTimeMillis();
+      time.advanceTo(target > now ? target : now + 1);
+      while (next < total && createdAt[next] <= time.currentTimeMillis()) {
+        db.addNotification(notification(next++));
+      }
+    }
+    clock.finishSimulation(db);
+    db.closeDb();
+    long wallMillis = (System.nanoTime() - wallStart) / 1_000_000;
+
+    System.out.println("Notifications:     " + total + " (" + preloaded + " preloaded)");
+    System.out.println(
+        "Virtual time:      " + (time.currentTimeMillis() - START_MILLIS) / 1000 + " s");
+    System.out.println("Wall time:         " + wallMillis + " ms");
+    System.out.println("Ticks:             " + ticks);
+    System.out.println("Metrics:           " + clock.getMetrics());
+    System.out.println(
+        "DB page reads:     " + db.pageReads.get() + " (" + db.rowsRead.get() + " rows)");
+    System.out.println("DB inserts:        " + db.inserts.get());
+    System.out.println(
+        "DB delete batches: " + db.deleteBatches.get() + " (" + db.rowsDeleted.get() + " rows)");
+    System.out.println(
+        "Remote deletes:    "
+            + remote.deleteCalls.get()
+            + " calls ("
+            + remote.idsDeleted.get()
+            + " ids)");
+    System.out.println("Remote other:      " + remote.otherCalls.get());
+  }
+
+  private NotificationInfo notification(int index) {
+    int webId = index % 3 == 0 ? index + 1 : 0;
+    return new NotificationInfo(0, webId, titles[index], null, fireAt[index]);
+  }
+
+  /** Рівномірні надходження за {@code days}; кожне спрацьовує в межах доби після створення. */
+  static ClockSimulation generate(int count, int days, long seed) {
+    Random random = new Random(seed);
+    long span = days * 86_400_000L;
+    long[][] rows = new long[count][2];
+    for (int i = 0; i < count; i++) {
+      long created =
+          i < count / 2 ? START_MILLIS : START_MILLIS + (long) (random.nextDouble() * span);
+      long fire = created + (long) (random.nextDouble() * 86_400_000L);
+      rows[i][0] = created;
+      rows[i][1] = fire / 1000;
+    }
+    Arrays.sort(rows, (a, b) -> Long.compare(a[0], b[0]));
+    long[] createdAt = new long[count];
+    long[] fireAt = new long[count];
+    String[] titles = new String[count];
+    for (int i = 0; i < count; i++) {
+      createdAt[i] = rows[i][0];
+      fireAt[i] = rows[i][1];
+      titles[i] = "sim-" + i;
+    }
+    return new ClockSimulation(createdAt, fireAt, titles);
+  }
+
+  static ClockSimulation load(Path path) throws IOException {
+    List<String[]> rows = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.isBlank()) {
+          rows.add(line.split(",", 3));
+        }
+      }
+    }
+    rows.sort((a, b) -> Long.compare(Long.parseLong(a[0].trim()), Long.parseLong(b[0].trim())));
+    long[] createdAt = new long[rows.size()];
+    long[] fireAt = new long[rows.size()];
+    String[] titles = new String[rows.size()];
+    for (int i = 0; i < rows.size(); i++) {
+      String[] row = rows.get(i);
+      createdAt[i] = Long.parseLong(row[0].trim());
+      fireAt[i] = Long.parseLong(row[1].trim());
+      titles[i] = row.length > 2 ? row[2] : "replay-" + i;
+    }
+    return new ClockSimulation(createdAt, fireAt, titles);
+  }
+
+  /** Рахує звернення годинника до сховища, не змінюючи їх. */
+  private static final class CountingStore implements NotificationStore {
+    final AtomicLong pageReads = new AtomicLong();
+    final AtomicLong rowsRead = new AtomicLong();
+    final AtomicLong inserts = new AtomicLong();
+    final AtomicLong deleteBatches = new AtomicLong();
+    final AtomicLong rowsDeleted = new AtomicLong();
+    private final NotificationStore delegate;
+
+    CountingStore(NotificationStore delegate) {
+      this.delegate = delegate;
+    }
+
+    void resetCounters() {
+      pageReads.set(0);
+      rowsRead.set(0);
+      inserts.set(0);
+      deleteBatches.set(0);
+      rowsDeleted.set(0);
+    }
+
+    @Override
+    public ArrayList<NotificationInfo> getNotificationsAfter(
+        long fireAt, int id, long untilFireAt, int limit) {
+      ArrayList<NotificationInfo> page =
+          delegate.getNotificationsAfter(fireAt, id, untilFireAt, limit);
+      pageReads.incrementAndGet();
+      rowsRead.addAndGet(page.size());
+      return page;
+    }
+
+    @Override
+    public void addNotification(NotificationInfo n) {
+      inserts.incrementAndGet();
+      delegate.addNotification(n);
+    }
+
+    @Override
+    public void deleteNotifications(List<Integer> ids) {
+      deleteBatches.incrementAndGet();
+      rowsDeleted.addAndGet(ids.size());
+      delegate.deleteNotifications(ids);
+    }
+
+    @Override
+    public void setInsertListener(Consumer<NotificationInfo> listener) {
+      delegate.setInsertListener(listener);
+    }
+
+    @Override
+    public void makeDb() {
+      delegate.makeDb();
+    }
+
+    @Override
+    public void closeDb() {
+      delegate.closeDb();
+    }
+
+    @Override
+    public void flush() {
+      delegate.flush();
+    }
+
+    @Override
+    public FireTimeStats fireTimeStats(long fromFireAt, long untilFireAt) {
+      return delegate.fireTimeStats(fromFireAt, untilFireAt);
+    }
+
+    @Override
+    public long countNotifications() {
+      return delegate.countNotifications();
+    }
+
+    @Override
+    public long lastInsertedId() {
+      return delegate.lastInsertedId();
+    }
+
+    @Override
+    public long changeCount() {
+      return delegate.changeCount();
+    }
+
+    @Override
+    public void rescheduleNotifications(List<NotificationInfo> next) {
+      delegate.rescheduleNotifications(next);
+    }
+
+    @Override
+    public void archiveFired(List<NotificationInfo> fired, long firedAtMillis) {
+      delegate.archiveFired(fired, firedAtMillis);
+    }
+
+    @Override
+    public NotificationInfo getNotificationByWebId(int webId) {
+      return delegate.getNotificationByWebId(webId);
+    }
+
+    @Override
+    public Map<Integer, String> getPayloads(List<Integer> ids) {
+      return delegate.getPayloads(ids);
+    }
+
+    @Override
+    public List<NotificationInfo> upsertAll(List<NotificationInfo> infos) {
+      return delegate.upsertAll(infos);
+    }
+
+    @Override
+    public NotificationInfo upsertNotificationByWebId(NotificationInfo info) {
+      return delegate.upsertNotificationByWebId(info);
+    }
+  }
+
+  /** Сервер, що завжди відповідає успіхом і лише рахує виклики. */
+  private static final class CountingRemoteApi implements RemoteApi {
+    final AtomicLong deleteCalls = new AtomicLong();
+    final AtomicLong idsDeleted = new AtomicLong();
+    final AtomicLong otherCalls = new AtomicLong();
+
+    @Override
+    public List<NotificationInfo> fetchNotifications() {
+      otherCalls.incrementAndGet();
+      return List.of();
+    }
+
+    @Override
+    public boolean deleteNotifications(List<Integer> webIds, boolean superuser) {
+      deleteCalls.incrementAndGet();
+      idsDeleted.addAndGet(webIds.size());
+      return true;
+    }
+
+    @Override
+    public Boolean fetchAdminStatus() {
+      otherCalls.incrementAndGet();
+      return Boolean.FALSE;
+    }
+  }
+}
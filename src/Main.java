@@ -1,15 +1,32 @@
 import db.DataBaseWrapper;
+import db.NotificationStore;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Scanner;
+import java.util.stream.Stream;
 import logger.Logger;
+import scheduling.ExecutionMode;
+import scheduling.NotificationScheduler;
+import sink.SinkRouter;
 import structures.NotificationInfo;
+import structures.Recurrence;
 import web.Client;
 
 // TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
 // click the <icon src="AllIcons.Actions.Execute"/> icon in the gutter.
 public class Main {
+  private static final int LOCAL_FETCH_SIZE = 200;
+  private static final String USAGE =
+      "Usage: Main [--cli] [--storage=<kind>[:<file>]] [--scheduler=<kind>] [--threads=<mode>]\n"
+          + "  [--db-readers=<n>] [--write-behind=<ms>] [--archive-days=<days>]"
+          + " [--compress-payloads=<bytes>]\n"
+          + "  [--http-compress=<bytes>] [--sinks=<list>] [--sink-queue=<n>]"
+          + " [--sink-overflow=<policy>]\n"
+          + "  [--snapshot=<file>|off]"
+          + " [--catch-up=summary|rate] [--catch-up-rate=<per second>]";
 
   String name, password;
 
@@ -61,7 +78,7 @@ public class Main {
     return status;
   }
 
-  public int handleAddNotification(DataBaseWrapper db) {
+  public int handleAddNotification(NotificationStore db) {
     String title, payload;
     long delaySeconds;
     Boolean sendToWeb = false;
@@ -79,11 +96,20 @@ public class Main {
     scanner.nextLine(); // consume leftover newline
     long fireAt = (System.currentTimeMillis() / 1000L) + delaySeconds;
     Logger.info("Calculated fire_at timestamp " + fireAt);
+    System.out.println("Repeat rule (empty for none, e.g. every:1d or cron:0 9 * * 1-5): ");
+    String recurrence = scanner.nextLine().trim();
+    try {
+      Recurrence.parse(recurrence);
+    } catch (IllegalArgumentException e) {
+      Logger.warn("Invalid repeat rule: " + e.getMessage());
+      System.out.println("Invalid repeat rule: " + e.getMessage());
+      return -1;
+    }
     System.out.println("Do you want to send to web? <yes/no> || <y/n>");
     sendToWeb = yesNo2Bool(scanner.nextLine());
     Logger.info("Adding notification with sendToWeb " + sendToWeb);
 
-    NotificationInfo n = new NotificationInfo(0, 0, title, payload, fireAt);
+    NotificationInfo n = new NotificationInfo(0, 0, title, payload, fireAt, recurrence);
     if (sendToWeb) {
       List<String> statuses = Client.sendNotification(n);
       if (statuses.isEmpty()) {
@@ -250,7 +276,20 @@ public class Main {
     }
   }
 
-  public void runCli(DataBaseWrapper db, Clock clock) {
+  /** Друкує локальну таблицю сторінками, не завантажуючи її в пам'ять цілком. */
+  public void showLocalNotifications(NotificationStore db) {
+    try (Stream<NotificationInfo> rows = db.streamNotifications(LOCAL_FETCH_SIZE)) {
+      long count = 0;
+      for (Iterator<NotificationInfo> it = rows.iterator(); it.hasNext(); count++) {
+        System.out.println(it.next().toString());
+      }
+      System.out.println(count + " local notifications.");
+    } catch (IllegalStateException e) {
+      Logger.error("Failed to list local notifications: " + e.getMessage());
+    }
+  }
+
+  public void runCli(NotificationStore db, Clock clock) {
     System.out.println("Starting CLI mode. Pass --cli to force CLI, omit for Swing UI.");
 
     int status = 0;
@@ -258,18 +297,7 @@ public class Main {
       status = handleRegistration();
     }
 
-    Thread clockThread =
-        new Thread(
-            () -> {
-              try {
-                clock.NotifyingCylce(db);
-              } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                Logger.warn("Notification clock interrupted");
-              }
-            },
-            "notification-clock");
-    clockThread.setDaemon(true);
+    Thread clockThread = clock.newThread(db);
     clockThread.start();
 
     label:
@@ -290,9 +318,11 @@ public class Main {
           System.out.println("help - to get help");
           System.out.println("add notifications - create a notification and push it to the server");
           System.out.println("show notifications - print remote notifications");
+          System.out.println("show local - print notifications stored in the local database");
           System.out.println("delete notifications - remove notifications from remote server");
           System.out.println("add user - create or update a user via admin API");
           System.out.println("delete users - remove users via admin API");
+          System.out.println("stats - print notification clock metrics");
           break;
         case "add notifications", "an":
           Logger.info("Adding notifications...");
@@ -301,6 +331,9 @@ public class Main {
         case "show notifications", "sn":
           showRemoteNotifications();
           break;
+        case "show local", "sl":
+          showLocalNotifications(db);
+          break;
         case "delete notifications", "dn":
           Logger.info("Deleting notifications...");
           handleDeleteNotifications();
@@ -313,6 +346,10 @@ public class Main {
           Logger.info("Admin requested to delete users...");
           handleDeleteUsersAsSuperuser();
           break;
+        case "stats":
+          System.out.println(clock.getMetrics());
+          clock.getSinkStats().forEach(System.out::println);
+          break;
 
         default:
           Logger.warn("Unknown command");
@@ -329,13 +366,135 @@ public class Main {
     db.closeDb();
   }
 
+  public static String optionValue(String[] args, String name) {
+    if (args == null) {
+      return null;
+    }
+    String prefix = name + "=";
+    for (String arg : args) {
+      if (arg != null && arg.toLowerCase().startsWith(prefix)) {
+        return arg.substring(prefix.length());
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Числова опція {@code name=<n>}.
+   *
+   * @return {@code null}, якщо опції немає
+   * @throws IllegalArgumentException якщо значення не ціле або менше за {@code min}
+   */
+  static Integer intOption(String[] args, String name, int min) {
+    String value = optionValue(args, name);
+    if (value == null) {
+      return null;
+    }
+    int parsed;
+    try {
+      parsed = Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " expects an integer, got '" + value + "'");
+    }
+    if (parsed < min) {
+      throw new IllegalArgumentException(name + " must be at least " + min + ", got " + parsed);
+    }
+    return parsed;
+  }
+
+  /**
+   * Режим наздоганяння з {@code --catch-up}; сама {@code --catch-up-rate} означає {@code rate}.
+   *
+   * @return {@code null}, якщо жодної з опцій немає
+   */
+  static Clock.CatchUpMode catchUpMode(String catchUp, boolean hasRate) {
+    if (catchUp == null) {
+      return hasRate ? Clock.CatchUpMode.RATE_LIMITED : null;
+    }
+    return switch (catchUp.trim().toLowerCase()) {
+      case "rate" -> Clock.CatchUpMode.RATE_LIMITED;
+      case "summary" -> {
+        if (hasRate) {
+          throw new IllegalArgumentException("--catch-up-rate applies only to --catch-up=rate");
+        }
+        yield Clock.CatchUpMode.SUMMARY;
+      }
+      default -> throw new IllegalArgumentException("Unknown --catch-up mode: " + catchUp);
+    };
+  }
+
   public static void main(String[] args) {
     boolean useCli =
         args != null && Arrays.stream(args).anyMatch(arg -> "--cli".equalsIgnoreCase(arg));
 
-    DataBaseWrapper db = new DataBaseWrapper();
+    // Усі числові опції перевіряються до відкриття бази: помилка — це повідомлення, а не стек.
+    Integer dbReaders;
+    Integer writeBehind;
+    Integer archiveDays;
+    Integer compressPayloads;
+    Integer httpCompress;
+    Integer sinkQueue;
+    Integer catchUpRate;
+    Clock.CatchUpMode catchUp;
+    try {
+      dbReaders = intOption(args, "--db-readers", 0);
+      writeBehind = intOption(args, "--write-behind", 1);
+      archiveDays = intOption(args, "--archive-days", 1);
+      compressPayloads = intOption(args, "--compress-payloads", 0);
+      httpCompress = intOption(args, "--http-compress", 0);
+      sinkQueue = intOption(args, "--sink-queue", 1);
+      catchUpRate = intOption(args, "--catch-up-rate", 1);
+      catchUp = catchUpMode(optionValue(args, "--catch-up"), catchUpRate != null);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(USAGE);
+      System.exit(2);
+      return;
+    }
+
+    NotificationStore db = NotificationStore.create(optionValue(args, "--storage"));
     db.makeDb();
-    Clock clock = new Clock();
+    if (db instanceof DataBaseWrapper sqlite) {
+      if (dbReaders != null) {
+        sqlite.enableWal(dbReaders);
+      }
+      if (writeBehind != null) {
+        sqlite.enableWriteBehind(512, writeBehind);
+      }
+      if (archiveDays != null) {
+        sqlite.enableArchive(archiveDays);
+      }
+      if (compressPayloads != null) {
+        sqlite.enablePayloadCompression(compressPayloads);
+      }
+    } else if (dbReaders != null
+        || writeBehind != null
+        || archiveDays != null
+        || compressPayloads != null) {
+      Logger.warn(
+          "--db-readers, --write-behind, --archive-days and --compress-payloads apply only to"
+              + " SQLite, ignoring.");
+    }
+    if (httpCompress != null) {
+      Client.enableCompression(httpCompress);
+    }
+    Clock clock = new Clock(NotificationScheduler.create(optionValue(args, "--scheduler")));
+    clock.setExecutionMode(ExecutionMode.parse(optionValue(args, "--threads")));
+    String sinks = optionValue(args, "--sinks");
+    String sinkOverflow = optionValue(args, "--sink-overflow");
+    if (sinks != null || sinkQueue != null || sinkOverflow != null) {
+      clock.configureSinks(
+          SinkRouter.parse(sinks),
+          sinkQueue == null ? 256 : sinkQueue,
+          SinkRouter.parsePolicy(sinkOverflow));
+    }
+    String snapshot = optionValue(args, "--snapshot");
+    if (snapshot != null) {
+      clock.setSnapshotPath("off".equalsIgnoreCase(snapshot) ? null : Path.of(snapshot));
+    }
+    if (catchUp != null) {
+      clock.configureCatchUp(catchUp, 5, catchUpRate == null ? 2 : catchUpRate);
+    }
     Main app = new Main();
 
     if (useCli) {
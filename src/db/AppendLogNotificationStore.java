@@ -0,0 +1,517 @@
+package db;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+import logger.Logger;
+import structures.NotificationInfo;
+
+/**
+ * {@link NotificationStore} для вузлів з дуже частими вставками й видаленнями: стан живе в пам'яті
+ * ({@link InMemoryNotificationStore}), а кожна зміна дописується в кінець журналу, відображеного в
+ * пам'ять ({@link MappedByteBuffer}).
+ *
+ * <p>Запис у журнал — це копіювання в сторінковий кеш без системного виклику, тож падіння процесу
+ * нічого не втрачає; {@code force()} викликається не частіше ніж раз на {@code
+ * FORCE_INTERVAL_MILLIS}, на {@link #flush()} і під час закриття, тож збій ОС може забрати
+ * останню секунду змін. Коли записів у журналі вчетверо більше, ніж живих рядків, журнал
+ * ущільнюється: живі рядки пишуться в файл наступного покоління ({@code <файл>.1}, {@code
+ * <файл>.2}, …), і сховище перемикається на нього. Відображений файл ніколи не перезаписується
+ * й не підміняється — на Windows це неможливо, поки відображення живе; старе покоління
+ * видаляється, щойно ОС дозволить, а найпізніше — під час наступного відкриття.
+ *
+ * <p>Формат: заголовок {@code MAGIC, VERSION}, далі записи {@code довжина, CRC32, тіло}. Нульова
+ * довжина — кінець журналу; пошкоджений хвіст відкидається під час відкриття.
+ */
+public final class AppendLogNotificationStore extends InMemoryNotificationStore {
+  private static final int MAGIC = 0x4E4C4F47;
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 8;
+  private static final int RECORD_HEADER_BYTES = 8;
+
+  private static final byte PUT = 1;
+  private static final byte DELETE = 2;
+  private static final byte RESCHEDULE = 3;
+  private static final byte SEQUENCE = 4;
+
+  private static final int INITIAL_MAP_BYTES = 1 << 20;
+  private static final long COMPACT_MIN_RECORDS = 50_000;
+  private static final int COMPACT_GARBAGE_RATIO = 4;
+  private static final long FORCE_INTERVAL_MILLIS = 1_000;
+
+  private final Path base;
+  /** Поточне покоління: {@code 0} — сам {@link #base}, далі {@code <base>.<покоління>}. */
+  private long generation;
+  private Path path;
+  private FileChannel channel;
+  private MappedByteBuffer map;
+  private long records;
+  private long lastForceMillis;
+  private boolean closed;
+
+  public AppendLogNotificationStore(Path path) throws IOException {
+    base = path;
+    generation = latestGeneration(path);
+    this.path = fileFor(generation);
+    channel =
+        FileChannel.open(
+            this.path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    long size = channel.size();
+    map = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, INITIAL_MAP_BYTES));
+    if (size == 0) {
+      map.putInt(MAGIC).putInt(VERSION);
+    } else if (size < HEADER_BYTES || map.getInt() != MAGIC || map.getInt() != VERSION) {
+      channel.close();
+      throw new IOException("Not a notification log: " + this.path);
+    }
+    if (!replay()) {
+      compact();
+    }
+    deleteStaleGenerations();
+    Logger.info(
+        "Opened notification log " + this.path + " with " + countNotifications() + " notifications.");
+  }
+
+  /** Відтворює журнал у пам'ять; {@code false}, якщо хвіст пошкоджено. */
+  private boolean replay() {
+    map.position(HEADER_BYTES);
+    while (map.remaining() >= RECORD_HEADER_BYTES) {
+      int start = map.position();
+      int length = map.getInt();
+      if (length == 0) {
+        map.position(start);
+        return true;
+      }
+      if (length < 0 || length > map.remaining() - 4) {
+        return damaged(start);
+      }
+      int crc = map.getInt();
+      byte[] body = new byte[length];
+      map.get(body);
+      if (crc(body) != crc) {
+        return damaged(start);
+      }
+      apply(ByteBuffer.wrap(body));
+      records++;
+    }
+    return true;
+  }
+
+  private boolean damaged(int offset) {
+    Logger.warn(
+        "Notification log " + path + " is damaged at offset " + offset + ", dropping the tail.");
+    map.position(offset);
+    return false;
+  }
+
+  private void apply(ByteBuffer body) {
+    switch (body.get()) {
+      case PUT -> put(readRow(body));
+      case DELETE -> remove(body.getInt());
+      case RESCHEDULE -> move(body.getInt(), body.getLong());
+      case SEQUENCE -> restoreSequence(body.getLong());
+      default -> Logger.warn("Unknown record in notification log " + path + ", skipping.");
+    }
+  }
+
+  @Override
+  public void addNotification(NotificationInfo n) {
+    boolean added;
+    lockWrites();
+    try {
+      added = insertRow(n);
+      if (added) {
+        append(putRecord(row(n.getId())));
+        afterWrite();
+      }
+    } finally {
+      unlockWrites();
+    }
+    if (added) {
+      inserted(n);
+    }
+  }
+
+  @Override
+  public void deleteNotifications(List<Integer> ids) {
+    if (ids == null || ids.isEmpty()) {
+      return;
+    }
+    lockWrites();
+    try {
+      super.deleteNotifications(ids);
+      for (int id : ids) {
+        append(ByteBuffer.allocate(5).put(DELETE).putInt(id).array());
+      }
+      afterWrite();
+    } finally {
+      unlockWrites();
+    }
+  }
+
+  @Override
+  public void rescheduleNotifications(List<NotificationInfo> next) {
+    if (next == null || next.isEmpty()) {
+      return;
+    }
+    lockWrites();
+    try {
+      super.rescheduleNotifications(next);
+      for (NotificationInfo n : next) {
+        ByteBuffer body = ByteBuffer.allocate(13).put(RESCHEDULE);
+        append(body.putInt(n.getId()).putLong(n.getFireAt()).array());
+      }
+      afterWrite();
+    } finally {
+      unlockWrites();
+    }
+  }
+
+  @Override
+  public List<NotificationInfo> upsertAll(List<NotificationInfo> infos) {
+    lockWrites();
+    try {
+      List<NotificationInfo> stored = super.upsertAll(infos);
+      for (NotificationInfo row : stored) {
+        append(putRecord(row));
+      }
+      afterWrite();
+      return stored;
+    } finally {
+      unlockWrites();
+    }
+  }
+
+  @Override
+  public NotificationInfo upsertNotificationByWebId(NotificationInfo info) {
+    if (info == null || info.getWebId() <= 0) {
+      return null;
+    }
+    Upserted result;
+    lockWrites();
+    try {
+      result = upsertRow(info);
+      append(putRecord(result.row()));
+      afterWrite();
+    } finally {
+      unlockWrites();
+    }
+    if (result.created()) {
+      inserted(info);
+      return info;
+    }
+    return result.row();
+  }
+
+  @Override
+  public void flush() {
+    lockWrites();
+    try {
+      if (!closed) {
+        map.force();
+        lastForceMillis = System.currentTimeMillis();
+      }
+    } finally {
+      unlockWrites();
+    }
+  }
+
+  /** Ущільнює журнал, якщо в ньому є сміття, скидає його на диск і закриває файл. */
+  @Override
+  public void closeDb() {
+    lockWrites();
+    try {
+      if (closed) {
+        return;
+      }
+      if (records > countNotifications() + 1) {
+        compact();
+      }
+      map.force();
+      channel.truncate(map.position());
+      channel.close();
+      closed = true;
+    } catch (IOException e) {
+      Logger.error("Failed to close notification log " + path + ": " + e.getMessage());
+    } finally {
+      unlockWrites();
+    }
+  }
+
+  private void append(byte[] body) {
+    if (closed) {
+      Logger.warn("Notification log " + path + " is closed, change kept in memory only.");
+      return;
+    }
+    if (map.remaining() < RECORD_HEADER_BYTES + body.length) {
+      grow(RECORD_HEADER_BYTES + body.length);
+    }
+    map.putInt(body.length).putInt(crc(body)).put(body);
+    records++;
+  }
+
+  private void grow(int needed) {
+    long capacity = Math.max(2L * map.capacity(), (long) map.position() + needed);
+    if (capacity > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Notification log " + path + " exceeds 2 GiB");
+    }
+    int position = map.position();
+    try {
+      map.force();
+      map = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to grow notification log " + path, e);
+    }
+    map.position(position);
+  }
+
+  private void afterWrite() {
+    long now = System.currentTimeMillis();
+    if (now - lastForceMillis >= FORCE_INTERVAL_MILLIS && !closed) {
+      map.force();
+      lastForceMillis = now;
+    }
+    if (records >= COMPACT_MIN_RECORDS
+        && records > COMPACT_GARBAGE_RATIO * (countNotifications() + 1)) {
+      compact();
+    }
+  }
+
+  /**
+   * Переписує живі рядки у файл наступного покоління й перемикає на нього запис. Викликати під
+   * записом.
+   */
+  private void compact() {
+    List<NotificationInfo> rows = rows();
+    Path next = fileFor(generation + 1);
+    Path tmp = base.resolveSibling(base.getFileName() + ".compact");
+    long end;
+    try {
+      end = writeCompacted(tmp, rows);
+    } catch (IOException e) {
+      Logger.error("Failed to compact notification log " + path + ": " + e.getMessage());
+      try {
+        Files.deleteIfExists(tmp);
+      } catch (IOException ignored) {
+        // Наступне ущільнення перезапише файл.
+      }
+      return;
+    }
+
+    // Перейменовується лише щойно записаний файл, який ніхто не відображає.
+    try {
+      Files.move(tmp, next, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      Logger.error("Failed to publish compacted notification log " + next + ": " + e.getMessage());
+      deleteQuietly(tmp);
+      return;
+    }
+    FileChannel nextChannel = null;
+    MappedByteBuffer nextMap;
+    try {
+      nextChannel = FileChannel.open(next, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      nextMap =
+          nextChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_MAP_BYTES, 2 * end));
+      nextMap.position((int) end);
+    } catch (IOException e) {
+      Logger.error("Failed to open compacted notification log " + next + ": " + e.getMessage());
+      closeQuietly(nextChannel);
+      // Не лишати новіше покоління, яке наступне відкриття взяло б замість поточного журналу.
+      try {
+        Files.delete(next);
+      } catch (IOException deleteFailed) {
+        throw new UncheckedIOException("Failed to roll back notification log " + next, e);
+      }
+      return;
+    }
+
+    Path previous = path;
+    map.force();
+    closeQuietly(channel);
+    channel = nextChannel;
+    map = nextMap;
+    path = next;
+    generation++;
+    records = rows.size() + 1;
+    Logger.info("Compacted notification log " + path + " to " + rows.size() + " notifications.");
+    // На Windows файл не видаляється, доки живе старе відображення; тоді це зробить наступне
+    // відкриття.
+    deleteQuietly(previous);
+  }
+
+  private Path fileFor(long generation) {
+    return generation == 0 ? base : base.resolveSibling(base.getFileName() + "." + generation);
+  }
+
+  /** Найновіше покоління на диску: найбільший числовий суфікс {@code <base>.<n>} або 0. */
+  private static long latestGeneration(Path base) throws IOException {
+    Path dir = base.toAbsolutePath().getParent();
+    String prefix = base.getFileName() + ".";
+    long latest = 0;
+    if (dir == null || !Files.isDirectory(dir)) {
+      return latest;
+    }
+    try (DirectoryStream<Path> siblings = Files.newDirectoryStream(dir, prefix + "*")) {
+      for (Path sibling : siblings) {
+        long generation = generationOf(sibling.getFileName().toString(), prefix);
+        latest = Math.max(latest, generation);
+      }
+    }
+    return latest;
+  }
+
+  private static long generationOf(String name, String prefix) {
+    String suffix = name.substring(prefix.length());
+    if (suffix.isEmpty() || !suffix.chars().allMatch(Character::isDigit)) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(suffix);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /** Прибирає покоління, які лишилися від ущільнень, що не змогли видалити старий файл. */
+  private void deleteStaleGenerations() throws IOException {
+    Path dir = base.toAbsolutePath().getParent();
+    if (generation == 0 || dir == null) {
+      return;
+    }
+    deleteQuietly(base);
+    String prefix = base.getFileName() + ".";
+    try (DirectoryStream<Path> siblings = Files.newDirectoryStream(dir, prefix + "*")) {
+      for (Path sibling : siblings) {
+        long other = generationOf(sibling.getFileName().toString(), prefix);
+        if (other >= 0 && other < generation) {
+          deleteQuietly(sibling);
+        }
+      }
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      Logger.info("Could not delete notification log file " + file + " yet: " + e.getMessage());
+    }
+  }
+
+  private static void closeQuietly(FileChannel channel) {
+    if (channel == null) {
+      return;
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      Logger.warn("Failed to close notification log channel: " + e.getMessage());
+    }
+  }
+
+  private long writeCompacted(Path target, List<NotificationInfo> rows) throws IOException {
+    try (FileChannel out =
+        FileChannel.open(
+            target,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+      buffer.putInt(MAGIC).putInt(VERSION);
+      byte[] sequence = ByteBuffer.allocate(9).put(SEQUENCE).putLong(sequence()).array();
+      buffer = stage(out, buffer, sequence);
+      for (NotificationInfo row : rows) {
+        buffer = stage(out, buffer, putRecord(row));
+      }
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        out.write(buffer);
+      }
+      out.force(true);
+      return out.size();
+    }
+  }
+
+  private static ByteBuffer stage(FileChannel out, ByteBuffer buffer, byte[] body)
+      throws IOException {
+    int needed = RECORD_HEADER_BYTES + body.length;
+    if (buffer.remaining() < needed) {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        out.write(buffer);
+      }
+      buffer.clear();
+      if (buffer.capacity() < needed) {
+        buffer = ByteBuffer.allocate(needed);
+      }
+    }
+    buffer.putInt(body.length).putInt(crc(body)).put(body);
+    return buffer;
+  }
+
+  private static byte[] putRecord(NotificationInfo n) {
+    byte[] title = utf8(n.getTitle());
+    byte[] payload = utf8(n.getPayload());
+    byte[] recurrence = utf8(n.getRecurrence());
+    ByteBuffer body =
+        ByteBuffer.allocate(
+            1 + 4 + 4 + 8 + stringBytes(title) + stringBytes(payload) + stringBytes(recurrence));
+    body.put(PUT).putInt(n.getId()).putInt(n.getWebId()).putLong(n.getFireAt());
+    putString(body, title);
+    putString(body, payload);
+    putString(body, recurrence);
+    return body.array();
+  }
+
+  private static NotificationInfo readRow(ByteBuffer body) {
+    int id = body.getInt();
+    int webId = body.getInt();
+    long fireAt = body.getLong();
+    String title = getString(body);
+    String payload = getString(body);
+    String recurrence = getString(body);
+    return new NotificationInfo(id, webId, title, payload, fireAt, recurrence);
+  }
+
+  private static byte[] utf8(String value) {
+    return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static int stringBytes(byte[] value) {
+    return 4 + (value == null ? 0 : value.length);
+  }
+
+  private static void putString(ByteBuffer body, byte[] value) {
+    if (value == null) {
+      body.putInt(-1);
+    } else {
+      body.putInt(value.length).put(value);
+    }
+  }
+
+  private static String getString(ByteBuffer body) {
+    int length = body.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] value = new byte[length];
+    body.get(value);
+    return new String(value, StandardCharsets.UTF_8);
+  }
+
+  private static int crc(byte[] body) {
+    CRC32 crc = new CRC32();
+    crc.update(body);
+    return (int) crc.getValue();
+  }
+}
@@ -1,14 +1,38 @@
 package db;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import logger.Logger;
 import structures.NotificationInfo;
 
-public class DataBaseWrapper {
+/** SQLite-бекенд {@link NotificationStore}. */
+public class DataBaseWrapper implements NotificationStore {
 
   String url = "jdbc:sqlite:sample.db";
   private Connection conn;
+  private StatementCache statements;
+  private volatile ReaderPool readers;
+  private volatile WriteBehindQueue writeBehind;
+  private volatile FiredArchive archive;
+  private volatile int compressPayloadsAbove = PayloadColumn.NO_COMPRESSION;
+  private volatile Consumer<NotificationInfo> insertListener;
+
+  /** Спільні для записувача й читачів: 8 МіБ кешу сторінок і очікування замість SQLITE_BUSY. */
+  private static final List<String> CONNECTION_PRAGMAS =
+      List.of(
+          "PRAGMA busy_timeout = 5000", "PRAGMA cache_size = -8192", "PRAGMA temp_store = MEMORY");
 
   public static void main(String[] args) {
     DataBaseWrapper db = new DataBaseWrapper();
@@ -29,39 +53,342 @@ public class DataBaseWrapper {
   private void connect() {
     try {
       conn = DriverManager.getConnection(url);
+      statements = new StatementCache(conn);
       System.out.println("Connected to SQLite database.");
     } catch (SQLException e) {
       System.out.println("Connection failed: " + e.getMessage());
     }
   }
 
-  public void makeDb() {
-
-    String createAlarmsTable =
-        """
-        create table if not exists notifications(
-            id integer primary key autoincrement,
-            webId integer not null,
-            title text not null,
-            payload text,
-            fire_at integer not null  -- epoch seconds (UTC)
-        );
-        """;
+  @Override
+  public void setInsertListener(Consumer<NotificationInfo> listener) {
+    this.insertListener = listener;
+  }
 
+  /** Створює таблицю або доводить схему наявної бази до останньої версії. */
+  @Override
+  public synchronized void makeDb() {
     assert conn != null;
 
+    try {
+      SchemaMigrations.migrate(conn);
+    } catch (SQLException e) {
+      Logger.error("Failed to migrate database schema: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Перемикає базу в WAL-журнал: записує й надалі одне з'єднання під монітором обгортки, а читання
+   * йдуть через {@code readerConnections} окремих з'єднань і не чекають ні на запис, ні одне на
+   * одного. {@code synchronous = NORMAL} у WAL не ризикує цілісністю, лише останніми транзакціями
+   * при вимкненні живлення.
+   *
+   * @param readerConnections 0 — лише WAL і прагми без пулу читачів
+   */
+  public synchronized void enableWal(int readerConnections) {
+    if (readerConnections < 0) {
+      throw new IllegalArgumentException(
+          "Reader connection count must not be negative: " + readerConnections);
+    }
+    assert conn != null;
     try (Statement stmt = conn.createStatement()) {
+      String mode;
+      try (ResultSet rs = stmt.executeQuery("PRAGMA journal_mode = WAL")) {
+        mode = rs.next() ? rs.getString(1) : "";
+      }
+      if (!"wal".equalsIgnoreCase(mode)) {
+        Logger.warn("Database " + url + " cannot use WAL (journal_mode=" + mode + ").");
+        return;
+      }
+      stmt.execute("PRAGMA synchronous = NORMAL");
+      for (String pragma : CONNECTION_PRAGMAS) {
+        stmt.execute(pragma);
+      }
+    } catch (SQLException e) {
+      Logger.error("Failed to enable WAL mode: " + e.getMessage());
+      return;
+    }
 
-      stmt.execute(createAlarmsTable);
-      Logger.info("Created database table.");
+    ReaderPool previous = readers;
+    readers = null;
+    if (previous != null) {
+      previous.close();
+    }
+    if (readerConnections > 0) {
+      try {
+        readers = new ReaderPool(url, readerConnections, CONNECTION_PRAGMAS);
+      } catch (SQLException e) {
+        Logger.error("Failed to open read connections, reading via the writer: " + e.getMessage());
+        return;
+      }
+    }
+    Logger.info("WAL mode enabled with " + readerConnections + " read connections.");
+  }
 
-    } catch (SQLException e) {
-      Logger.error("Failed to create database table: " + e.getMessage());
+  /**
+   * Читання, що бачить власні записи: якщо відкладені записи зачіпають його ({@code touched}),
+   * спершу дочікується їхнього коміту, інакше читає одразу й не ламає групування записів.
+   */
+  private <T> T read(Predicate<PendingFootprints> touched, ReaderPool.Query<T> query)
+      throws SQLException {
+    if (touched.test(pendingFootprints())) {
+      flushWrites();
     }
+    return readNow(query);
   }
 
+  /**
+   * Рядки за keyset-запитом у діапазоні {@code fromFireAt <= fire_at < untilFireAt}. Сліди
+   * відкладених записів знімаються до читання; якщо вони зачіпають прочитане (див. {@link
+   * #pageTouched}), запит повторюється після коміту.
+   */
+  private ArrayList<NotificationInfo> readRows(
+      long fromFireAt,
+      long untilFireAt,
+      int limit,
+      ReaderPool.Query<ArrayList<NotificationInfo>> query)
+      throws SQLException {
+    PendingFootprints pending = pendingFootprints();
+    ArrayList<NotificationInfo> rows = readNow(query);
+    if (pageTouched(pending, fromFireAt, untilFireAt, limit, rows) && flushWrites()) {
+      rows = readNow(query);
+    }
+    return rows;
+  }
+
+  /**
+   * Чи могли відкладені записи змінити сторінку {@code page}: нова позиція в покритому нею
+   * діапазоні {@code fire_at} або видалення чи перенесення одного з її рядків. Повна сторінка
+   * покриває діапазон лише до свого останнього рядка.
+   */
+  static boolean pageTouched(
+      PendingFootprints pending,
+      long fromFireAt,
+      long untilFireAt,
+      int limit,
+      List<NotificationInfo> page) {
+    if (pending.isEmpty()) {
+      return false;
+    }
+    long coveredUntil = untilFireAt;
+    if (!page.isEmpty() && page.size() >= limit) {
+      long last = page.get(page.size() - 1).getFireAt();
+      coveredUntil = last == Long.MAX_VALUE ? last : last + 1;
+    }
+    if (pending.touchesFireAt(fromFireAt, coveredUntil)) {
+      return true;
+    }
+    List<Integer> ids = new ArrayList<>(page.size());
+    for (NotificationInfo n : page) {
+      ids.add(n.getId());
+    }
+    return pending.touchesIds(ids);
+  }
+
+  private PendingFootprints pendingFootprints() {
+    WriteBehindQueue queue = writeBehind;
+    return queue == null ? PendingFootprints.EMPTY : queue.footprints();
+  }
+
+  /** Читання через пул, якщо його відкрито, інакше через з'єднання записувача. */
+  private <T> T readNow(ReaderPool.Query<T> query) throws SQLException {
+    ReaderPool pool = readers;
+    if (pool != null) {
+      return pool.read(query);
+    }
+    synchronized (this) {
+      return query.run(statements);
+    }
+  }
+
+  /**
+   * Вмикає відкладений запис: {@link #addNotification}, {@link #deleteNotification}, {@link
+   * #deleteNotifications} і {@link #rescheduleNotifications} лише ставлять операцію в чергу, а
+   * потік {@code db-writer} комітить до {@code maxBatch} операцій однією транзакцією не пізніше
+   * ніж через {@code maxDelayMillis}. Читання дочікуються поставлених записів, лише якщо ті
+   * зачіпають прочитане (див. {@link PendingFootprints}).
+   */
+  public void enableWriteBehind(int maxBatch, long maxDelayMillis) {
+    WriteBehindQueue previous = writeBehind;
+    writeBehind = new WriteBehindQueue(maxBatch, maxDelayMillis, this::commitBatch);
+    if (previous != null) {
+      previous.close();
+    }
+    Logger.info(
+        "Write-behind enabled: up to " + maxBatch + " writes per commit within "
+            + maxDelayMillis + " ms.");
+  }
+
+  /** Кількість поставлених у чергу, але ще не закомічених записів. */
+  public int pendingWrites() {
+    WriteBehindQueue queue = writeBehind;
+    return queue == null ? 0 : queue.pending();
+  }
+
+  /** Відкладені записи, що не пройшли навіть поодинці й були відкинуті. */
+  public long droppedWrites() {
+    WriteBehindQueue queue = writeBehind;
+    return queue == null ? 0 : queue.dropped();
+  }
+
+  /**
+   * Вмикає архів спрацьованих сповіщень (див. {@link FiredArchive}) з вікном зберігання {@code
+   * retentionDays} діб. Якщо база ще не в режимі {@code auto_vacuum = INCREMENTAL}, перемикає її
+   * одноразовим повним {@code VACUUM}.
+   */
+  public void enableArchive(int retentionDays) {
+    FiredArchive next = new FiredArchive(retentionDays);
+    flushWrites();
+    synchronized (this) {
+      assert conn != null;
+      try (Statement stmt = conn.createStatement()) {
+        if (scalar(statements, "PRAGMA auto_vacuum") != 2) {
+          Logger.info("Switching " + url + " to incremental auto-vacuum, rebuilding the file.");
+          stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+          stmt.execute("VACUUM");
+        }
+        next.maintain(conn, System.currentTimeMillis());
+      } catch (SQLException e) {
+        Logger.error("Failed to enable fired-notification archive: " + e.getMessage());
+        return;
+      }
+      archive = next;
+    }
+    Logger.info("Fired-notification archive enabled for " + retentionDays + " days.");
+  }
+
+  /**
+   * Дописує спрацьовані рядки в добову таблицю архіву, за потреби видаляючи прострочені доби. Без
+   * {@link #enableArchive} нічого не робить.
+   */
+  @Override
+  public void archiveFired(List<NotificationInfo> fired, long firedAtMillis) {
+    FiredArchive current = archive;
+    if (current == null || fired == null || fired.isEmpty()) {
+      return;
+    }
+    List<NotificationInfo> copy = List.copyOf(fired);
+    WriteBehindQueue queue = writeBehind;
+    if (queue != null) {
+      String description = "archive " + copy.size() + " fired notifications";
+      queue.submit(
+          description,
+          PendingFootprints.Footprint.NONE,
+          () -> archiveRows(current, copy, firedAtMillis),
+          null);
+      return;
+    }
+    synchronized (this) {
+      try {
+        inTransaction(() -> archiveRows(current, copy, firedAtMillis));
+      } catch (SQLException e) {
+        Logger.error("Failed to archive fired notifications: " + e.getMessage());
+      }
+    }
+  }
+
+  private void archiveRows(FiredArchive target, List<NotificationInfo> fired, long firedAtMillis)
+      throws SQLException {
+    target.append(conn, statements, fired, firedAtMillis, compressPayloadsAbove);
+    if (target.maintenanceDue(firedAtMillis)) {
+      target.maintain(conn, firedAtMillis);
+    }
+  }
+
+  /** Доби, за які в архіві є спрацьовані сповіщення, від найстарішої. */
+  public List<LocalDate> archivedDays() {
+    flushWrites();
+    synchronized (this) {
+      try {
+        return FiredArchive.partitions(conn);
+      } catch (SQLException e) {
+        Logger.error("Failed to list fired-notification archive: " + e.getMessage());
+        return List.of();
+      }
+    }
+  }
+
+  /** Сповіщення, що спрацювали протягом доби {@code day} (UTC), у порядку спрацювання. */
+  public ArrayList<NotificationInfo> getArchivedNotifications(LocalDate day) {
+    flushWrites();
+    synchronized (this) {
+      try {
+        if (!FiredArchive.partitions(conn).contains(day)) {
+          return new ArrayList<>();
+        }
+        String query =
+            "SELECT * FROM " + FiredArchive.tableName(day) + " ORDER BY fired_at, fire_at, id";
+        return mapAll(statements.prepare(query));
+      } catch (SQLException e) {
+        Logger.error("Failed to read fired notifications of " + day + ": " + e.getMessage());
+        return new ArrayList<>();
+      }
+    }
+  }
+
+  /**
+   * Стискає Deflate-ом payload, довший за {@code thresholdBytes} байтів UTF-8, перед записом у
+   * таблицю й архів (див. {@link PayloadColumn}). Уже збережені рядки не переписуються; читання
+   * розпізнає обидва формати незалежно від цього налаштування.
+   */
+  public void enablePayloadCompression(int thresholdBytes) {
+    if (thresholdBytes < 0) {
+      throw new IllegalArgumentException(
+          "Payload compression threshold must not be negative: " + thresholdBytes);
+    }
+    compressPayloadsAbove = thresholdBytes;
+    Logger.info("Compressing notification payloads above " + thresholdBytes + " bytes.");
+  }
+
+  /** Дочікується коміту всіх відкладених записів; без відкладеного запису нічого не робить. */
+  @Override
+  public void flush() {
+    flushWrites();
+  }
+
+  /** @return чи дочекалися коміту: без черги чи під монітором обгортки — ні */
+  private boolean flushWrites() {
+    WriteBehindQueue queue = writeBehind;
+    // Потік записувача чекає на цей монітор — під ним чекати на нього не можна.
+    if (queue == null || Thread.holdsLock(this)) {
+      return false;
+    }
+    queue.flush();
+    return true;
+  }
+
+  private synchronized void commitBatch(List<WriteBehindQueue.Write> batch) throws SQLException {
+    inTransaction(
+        () -> {
+          for (WriteBehindQueue.Write write : batch) {
+            write.apply();
+          }
+        });
+  }
+
+  /** Спершу комітить відкладені записи, потім закриває пул читачів, кеш запитів і з'єднання. */
+  @Override
   public void closeDb() {
+    WriteBehindQueue queue = writeBehind;
+    writeBehind = null;
+    if (queue != null) {
+      queue.close();
+    }
+    synchronized (this) {
+      closeConnections();
+    }
+  }
+
+  private void closeConnections() {
+    ReaderPool pool = readers;
+    readers = null;
+    if (pool != null) {
+      pool.close();
+    }
     try {
+      if (statements != null) {
+        statements.close();
+      }
       if (conn != null && !conn.isClosed()) {
         conn.close();
         System.out.println("Closed database connection.");
@@ -71,22 +398,90 @@ public class DataBaseWrapper {
     }
   }
 
+  @Override
   public ArrayList<NotificationInfo> getEarliestNotifications(int sampleSize) {
-    ArrayList<NotificationInfo> sample = new ArrayList<>();
+    String query = "SELECT * FROM notifications ORDER BY fire_at, id LIMIT ?";
+
+    assert conn != null;
+    try {
+      return readRows(
+          Long.MIN_VALUE,
+          Long.MAX_VALUE,
+          sampleSize,
+          statements -> {
+            PreparedStatement pstmt = statements.prepare(query);
+            pstmt.setInt(1, sampleSize);
+            return mapAll(pstmt);
+          });
+    } catch (SQLException e) {
+      System.out.println("Statement creation failed " + e.getMessage());
+    }
+    return new ArrayList<>();
+  }
+
+  @Override
+  public ArrayList<NotificationInfo> getNotificationsAfter(
+      long fireAt, int id, long untilFireAt, int limit) {
+    try {
+      return readPageAfter(fireAt, id, untilFireAt, limit);
+    } catch (SQLException e) {
+      Logger.error("Failed to load notifications after fire_at " + fireAt + ": " + e.getMessage());
+    }
+    return new ArrayList<>();
+  }
 
-    String query = "SELECT * FROM notifications ORDER BY fire_at LIMIT " + sampleSize;
+  private ArrayList<NotificationInfo> readPageAfter(
+      long fireAt, int id, long untilFireAt, int limit) throws SQLException {
+    String query =
+        "SELECT * FROM notifications WHERE (fire_at, id) > (?, ?) AND fire_at < ?"
+            + " ORDER BY fire_at, id LIMIT ?";
 
     assert conn != null;
-    try (Statement stmt = conn.createStatement()) {
-      ResultSet rs = stmt.executeQuery(query);
+    return readRows(
+        fireAt,
+        untilFireAt,
+        limit,
+        statements -> {
+          PreparedStatement pstmt = statements.prepare(query);
+          pstmt.setLong(1, fireAt);
+          pstmt.setInt(2, id);
+          pstmt.setLong(3, untilFireAt);
+          pstmt.setInt(4, limit);
+          return mapAll(pstmt);
+        });
+  }
+
+  /**
+   * Лінивий обхід таблиці keyset-сторінками по {@code fetchSize} рядків.
+   *
+   * <p>У пам'яті тримається одна сторінка з {@code fetchSize} рядків; кожна читається окремим
+   * keyset-запитом, тож повільний споживач не блокує ні годинник, ні записи, а закривати потік не
+   * обов'язково. Помилка читання сторінки обриває обхід {@link IllegalStateException}, а не
+   * тихо вкорочує його.
+   */
+  @Override
+  public Stream<NotificationInfo> streamNotifications(
+      long fromFireAt, long untilFireAt, int fetchSize) {
+    NotificationCursor cursor =
+        new NotificationCursor(
+            (fireAt, id, limit) -> readPageAfter(fireAt, id, untilFireAt, limit),
+            fetchSize,
+            fromFireAt,
+            untilFireAt);
+    return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(
+            cursor, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL),
+        false);
+  }
+
+  private ArrayList<NotificationInfo> mapAll(PreparedStatement pstmt) throws SQLException {
+    ArrayList<NotificationInfo> rows = new ArrayList<>();
+    try (ResultSet rs = pstmt.executeQuery()) {
       while (rs.next()) {
-        sample.add(mapNotification(rs));
+        rows.add(mapNotification(rs));
       }
-
-    } catch (SQLException e) {
-      System.out.println("Statement creation failed " + e.getMessage());
     }
-    return sample;
+    return rows;
   }
 
   private NotificationInfo mapNotification(ResultSet rs) throws SQLException {
@@ -94,110 +489,529 @@ public class DataBaseWrapper {
         rs.getInt("id"),
         rs.getInt("webId"),
         rs.getString("title"),
-        rs.getString("payload"),
-        rs.getLong("fire_at"));
+        PayloadColumn.read(rs),
+        rs.getLong("fire_at"),
+        rs.getString("recurrence"));
   }
 
-  public boolean thereIsAEarlierNotification(long fireAt) {
+  /**
+   * Найближчий {@code fire_at} у таблиці — «коли наступне спрацювання». Окремий {@code MIN} без
+   * інших агрегатів SQLite бере одним кроком по індексу.
+   */
+  @Override
+  public OptionalLong earliestFireAt() {
+    return extremeFireAt("SELECT MIN(fire_at) FROM notifications");
+  }
 
-    // earliest notification in the db
-    ArrayList<NotificationInfo> earliest = getEarliestNotifications(1);
-    if (earliest.isEmpty()) {
-      return false;
+  @Override
+  public OptionalLong latestFireAt() {
+    return extremeFireAt("SELECT MAX(fire_at) FROM notifications");
+  }
+
+  private OptionalLong extremeFireAt(String query) {
+    assert conn != null;
+    try {
+      return read(
+          pending -> pending.movesRows() || pending.touchesFireAt(Long.MIN_VALUE, Long.MAX_VALUE),
+          statements -> {
+            try (ResultSet rs = statements.prepare(query).executeQuery()) {
+              if (!rs.next()) {
+                return OptionalLong.empty();
+              }
+              long value = rs.getLong(1);
+              return rs.wasNull() ? OptionalLong.empty() : OptionalLong.of(value);
+            }
+          });
+    } catch (SQLException e) {
+      Logger.error("Failed to read notification fire time: " + e.getMessage());
+      return OptionalLong.empty();
+    }
+  }
+
+  /** {@code COUNT}, {@code MIN} і {@code MAX} по індексу {@code fire_at} без читання рядків. */
+  @Override
+  public FireTimeStats fireTimeStats(long fromFireAt, long untilFireAt) {
+    String query =
+        "SELECT COUNT(*), MIN(fire_at), MAX(fire_at) FROM notifications"
+            + " WHERE fire_at >= ? AND fire_at < ?";
+    assert conn != null;
+    try {
+      return read(
+          pending -> pending.movesRows() || pending.touchesFireAt(fromFireAt, untilFireAt),
+          statements -> {
+            PreparedStatement pstmt = statements.prepare(query);
+            pstmt.setLong(1, fromFireAt);
+            pstmt.setLong(2, untilFireAt);
+            try (ResultSet rs = pstmt.executeQuery()) {
+              if (!rs.next() || rs.getLong(1) == 0) {
+                return new FireTimeStats(0, OptionalLong.empty(), OptionalLong.empty());
+              }
+              return new FireTimeStats(
+                  rs.getLong(1), OptionalLong.of(rs.getLong(2)), OptionalLong.of(rs.getLong(3)));
+            }
+          });
+    } catch (SQLException e) {
+      Logger.error("Failed to aggregate notification fire times: " + e.getMessage());
+      return new FireTimeStats(-1, OptionalLong.empty(), OptionalLong.empty());
+    }
+  }
+
+  @Override
+  public long countNotifications() {
+    assert conn != null;
+    try {
+      return read(
+          PendingFootprints::changesRowCount,
+          statements -> scalar(statements, "SELECT COUNT(*) FROM notifications"));
+    } catch (SQLException e) {
+      Logger.error("Failed to count notifications: " + e.getMessage());
+      return -1;
+    }
+  }
+
+  /** Останній виданий AUTOINCREMENT id; не зменшується після видалень. */
+  @Override
+  public long lastInsertedId() {
+    assert conn != null;
+    String query = "SELECT seq FROM sqlite_sequence WHERE name = 'notifications'";
+    try {
+      return read(PendingFootprints::insertsRows, statements -> scalar(statements, query));
+    } catch (SQLException e) {
+      Logger.error("Failed to read notification id sequence: " + e.getMessage());
+      return -1;
+    }
+  }
+
+  /** Лічильник із таблиці {@code notification_changes}, яку ведуть тригери міграції. */
+  @Override
+  public long changeCount() {
+    assert conn != null;
+    String query = "SELECT changes FROM notification_changes WHERE id = 1";
+    try {
+      return read(pending -> !pending.isEmpty(), statements -> scalar(statements, query));
+    } catch (SQLException e) {
+      Logger.error("Failed to read notification change counter: " + e.getMessage());
+      return -1;
     }
-    NotificationInfo n = earliest.get(0);
+  }
 
-    return n.getFireAt() < fireAt;
+  private static long scalar(StatementCache statements, String query) throws SQLException {
+    try (ResultSet rs = statements.prepare(query).executeQuery()) {
+      return rs.next() ? rs.getLong(1) : 0;
+    }
   }
 
+  @Override
   public void deleteNotification(int id) {
     Logger.info("Deleting notification from db: " + id);
-    String query = "DELETE FROM notifications WHERE id = " + id;
+    WriteBehindQueue queue = writeBehind;
+    if (queue != null) {
+      queue.submit(
+          "delete notification with id " + id,
+          PendingFootprints.Footprint.delete(List.of(id)),
+          () -> deleteRows(List.of(id)),
+          null);
+      return;
+    }
+    synchronized (this) {
+      try {
+        deleteRows(List.of(id));
+      } catch (SQLException e) {
+        Logger.error("Failed to delete notification with id " + id + ": " + e.getMessage());
+      }
+    }
+  }
+
+  /** Видаляє кілька записів однією транзакцією. */
+  @Override
+  public void deleteNotifications(List<Integer> ids) {
+    if (ids == null || ids.isEmpty()) {
+      return;
+    }
+    Logger.info("Deleting notifications from db: " + ids);
+    List<Integer> copy = List.copyOf(ids);
+    WriteBehindQueue queue = writeBehind;
+    if (queue != null) {
+      queue.submit(
+          "delete notifications " + copy,
+          PendingFootprints.Footprint.delete(copy),
+          () -> deleteRows(copy),
+          null);
+      return;
+    }
+    synchronized (this) {
+      try {
+        inTransaction(() -> deleteRows(copy));
+      } catch (SQLException e) {
+        Logger.error("Failed to delete notifications " + ids + ": " + e.getMessage());
+      }
+    }
+  }
+
+  private void deleteRows(List<Integer> ids) throws SQLException {
     assert conn != null;
-    try (Statement stmt = conn.createStatement()) {
-      stmt.executeUpdate(query);
-    } catch (SQLException e) {
-      Logger.error("Failed to delete notification with id " + id + ": " + e.getMessage());
+    PreparedStatement pstmt = statements.prepare("DELETE FROM notifications WHERE id = ?");
+    for (int id : ids) {
+      pstmt.setInt(1, id);
+      pstmt.addBatch();
+    }
+    pstmt.executeBatch();
+  }
+
+  /**
+   * Переносить повторювані сповіщення на наступне спрацювання однією транзакцією.
+   *
+   * @param next копії з новим {@code fireAt} і тими самими id
+   */
+  @Override
+  public void rescheduleNotifications(List<NotificationInfo> next) {
+    if (next == null || next.isEmpty()) {
+      return;
+    }
+    List<NotificationInfo> copy = List.copyOf(next);
+    WriteBehindQueue queue = writeBehind;
+    if (queue != null) {
+      String description = "reschedule " + copy.size() + " recurring notifications";
+      queue.submit(
+          description,
+          PendingFootprints.Footprint.reschedule(copy),
+          () -> rescheduleRows(copy),
+          null);
+      return;
+    }
+    synchronized (this) {
+      try {
+        inTransaction(() -> rescheduleRows(copy));
+        Logger.info("Rescheduled " + next.size() + " recurring notifications.");
+      } catch (SQLException e) {
+        Logger.error("Failed to reschedule recurring notifications: " + e.getMessage());
+      }
+    }
+  }
+
+  private void rescheduleRows(List<NotificationInfo> next) throws SQLException {
+    assert conn != null;
+    String query = "UPDATE notifications SET fire_at = ? WHERE id = ?";
+    PreparedStatement pstmt = statements.prepare(query);
+    for (NotificationInfo n : next) {
+      pstmt.setLong(1, n.getFireAt());
+      pstmt.setInt(2, n.getId());
+      pstmt.addBatch();
     }
+    pstmt.executeBatch();
   }
 
+  /**
+   * Із відкладеним записом {@code id} з'являється в {@code n} і слухач вставок викликається лише
+   * після коміту групи.
+   */
+  @Override
   public void addNotification(NotificationInfo n) {
     Logger.info("Adding notification to db: " + n.toString());
-    String sql = "INSERT INTO notifications (webId, title, payload, fire_at) VALUES (?, ?, ?, ?)";
-    assert conn != null;
-    try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-      pstmt.setInt(1, n.getWebId());
-      pstmt.setString(2, n.getTitle());
-      if (n.getPayload() == null) {
-        pstmt.setNull(3, Types.VARCHAR);
-      } else {
-        pstmt.setString(3, n.getPayload());
-      }
-      pstmt.setLong(4, n.getFireAt());
-      pstmt.executeUpdate();
-
-      try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-        if (generatedKeys.next()) {
-          n.setId(generatedKeys.getInt(1));
-        }
+    WriteBehindQueue queue = writeBehind;
+    if (queue != null) {
+      queue.submit(
+          "add notification " + n.getTitle(),
+          PendingFootprints.Footprint.insert(n),
+          () -> insertRow(n),
+          () -> inserted(n));
+      return;
+    }
+    synchronized (this) {
+      try {
+        insertRow(n);
+      } catch (SQLException e) {
+        Logger.error("Failed to add notification: " + e.getMessage());
+        return;
       }
-      Logger.info("Notification added to db: " + n.toString());
+    }
+    inserted(n);
+  }
+
+  private void insertRow(NotificationInfo n) throws SQLException {
+    String sql =
+        "INSERT INTO notifications (webId, title, payload, fire_at, recurrence)"
+            + " VALUES (?, ?, ?, ?, ?)";
+    assert conn != null;
+    PreparedStatement pstmt = statements.prepare(sql, true);
+    pstmt.setInt(1, n.getWebId());
+    pstmt.setString(2, n.getTitle());
+    PayloadColumn.bind(pstmt, 3, n.getPayload(), compressPayloadsAbove);
+    pstmt.setLong(4, n.getFireAt());
+    pstmt.setString(5, n.getRecurrence());
+    pstmt.executeUpdate();
+
+    try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+      if (generatedKeys.next()) {
+        n.setId(generatedKeys.getInt(1));
+      }
+    }
+  }
+
+  private void inserted(NotificationInfo n) {
+    Logger.info("Notification added to db: " + n.toString());
+    Consumer<NotificationInfo> listener = insertListener;
+    if (listener != null) {
+      listener.accept(n);
+    }
+  }
+
+  /** Один підготовлений запит за {@code id} на рядок, усі — на одному з'єднанні. */
+  @Override
+  public Map<Integer, String> getPayloads(List<Integer> ids) {
+    Map<Integer, String> payloads = new HashMap<>();
+    if (ids == null || ids.isEmpty()) {
+      return payloads;
+    }
+    assert conn != null;
+    try {
+      return read(
+          pending -> pending.touchesIds(ids),
+          statements -> {
+            PreparedStatement pstmt =
+                statements.prepare("SELECT payload FROM notifications WHERE id = ?");
+            for (int id : ids) {
+              pstmt.setInt(1, id);
+              try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                  payloads.put(id, PayloadColumn.read(rs));
+                }
+              }
+            }
+            return payloads;
+          });
     } catch (SQLException e) {
-      Logger.error("Failed to add notification: " + e.getMessage());
+      Logger.error(
+          "Failed to load payloads of " + ids.size() + " notifications: " + e.getMessage());
+      return payloads;
     }
   }
 
+  @Override
   public NotificationInfo getNotificationByWebId(int webId) {
     if (webId <= 0) {
       return null;
     }
-    String query = "SELECT * FROM notifications WHERE webId = ?";
     assert conn != null;
-    try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-      pstmt.setInt(1, webId);
-      try (ResultSet rs = pstmt.executeQuery()) {
-        if (rs.next()) {
-          return mapNotification(rs);
-        }
+    try {
+      PendingFootprints pending = pendingFootprints();
+      if (pending.touchesWebId(webId)) {
+        flushWrites();
+      }
+      NotificationInfo row = readNow(statements -> selectByWebId(statements, webId));
+      if (row != null && pending.touchesIds(List.of(row.getId())) && flushWrites()) {
+        row = readNow(statements -> selectByWebId(statements, webId));
       }
+      return row;
     } catch (SQLException e) {
       Logger.error("Failed to fetch notification with webId " + webId + ": " + e.getMessage());
     }
     return null;
   }
 
+  /**
+   * Зберігає результат віддаленої синхронізації однією транзакцією: пакетний {@code UPDATE} для
+   * відомих webId і пакетний {@code INSERT} лише для нових.
+   *
+   * <p>{@code INSERT ... ON CONFLICT DO UPDATE} на цій AUTOINCREMENT-таблиці витрачав би значення
+   * {@code sqlite_sequence} на кожен наявний рядок: id росли б з кожною синхронізацією, а {@link
+   * #lastInsertedId()} змінювався б без нових рядків. Конфлікт {@code fire_at} вирішує {@link
+   * NotificationInfo#syncedFireAt}, як і в {@link #upsertNotificationByWebId}. Слухача вставок не
+   * викликає: рядки повертаються викликачу.
+   *
+   * @return збережені рядки або {@code null}, якщо транзакцію відкотили
+   */
+  @Override
+  public List<NotificationInfo> upsertAll(List<NotificationInfo> infos) {
+    Map<Integer, NotificationInfo> remote = new LinkedHashMap<>();
+    for (NotificationInfo info : infos) {
+      if (info != null && info.getWebId() > 0) {
+        remote.put(info.getWebId(), info);
+      }
+    }
+    if (remote.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    String update =
+        "UPDATE notifications SET title = ?, payload = ?, fire_at = ?, recurrence = ?"
+            + " WHERE webId = ?";
+    String insert =
+        "INSERT INTO notifications (webId, title, payload, fire_at, recurrence)"
+            + " VALUES (?, ?, ?, ?, ?)";
+    assert conn != null;
+    List<NotificationInfo> stored = new ArrayList<>(remote.size());
+    List<NotificationInfo> created = new ArrayList<>();
+    flushWrites();
+    synchronized (this) {
+      try {
+        inTransaction(
+            () -> {
+              List<NotificationInfo> updated = new ArrayList<>();
+              PreparedStatement updates = statements.prepare(update);
+              for (NotificationInfo n : remote.values()) {
+                NotificationInfo existing = selectKeyByWebId(statements, n.getWebId());
+                if (existing == null) {
+                  created.add(n);
+                  continue;
+                }
+                NotificationInfo row =
+                    new NotificationInfo(
+                        existing.getId(),
+                        n.getWebId(),
+                        n.getTitle(),
+                        n.getPayload(),
+                        NotificationInfo.syncedFireAt(existing, n),
+                        n.getRecurrence());
+                updates.setString(1, row.getTitle());
+                PayloadColumn.bind(updates, 2, row.getPayload(), compressPayloadsAbove);
+                updates.setLong(3, row.getFireAt());
+                updates.setString(4, row.getRecurrence());
+                updates.setInt(5, row.getWebId());
+                updates.addBatch();
+                updated.add(row);
+              }
+              if (!updated.isEmpty()) {
+                updates.executeBatch();
+              }
+              stored.addAll(updated);
+
+              if (created.isEmpty()) {
+                return;
+              }
+              PreparedStatement inserts = statements.prepare(insert);
+              for (NotificationInfo n : created) {
+                inserts.setInt(1, n.getWebId());
+                inserts.setString(2, n.getTitle());
+                PayloadColumn.bind(inserts, 3, n.getPayload(), compressPayloadsAbove);
+                inserts.setLong(4, n.getFireAt());
+                inserts.setString(5, n.getRecurrence());
+                inserts.addBatch();
+              }
+              inserts.executeBatch();
+              for (NotificationInfo n : created) {
+                NotificationInfo key = selectKeyByWebId(statements, n.getWebId());
+                if (key != null) {
+                  stored.add(
+                      new NotificationInfo(
+                          key.getId(),
+                          n.getWebId(),
+                          n.getTitle(),
+                          n.getPayload(),
+                          n.getFireAt(),
+                          n.getRecurrence()));
+                }
+              }
+            });
+      } catch (SQLException e) {
+        Logger.error(
+            "Failed to upsert " + remote.size() + " remote notifications: " + e.getMessage());
+        return null;
+      }
+    }
+    Logger.info(
+        "Upserted "
+            + stored.size()
+            + " remote notifications in one transaction ("
+            + created.size()
+            + " new).");
+    return stored;
+  }
+
+  /** {@code id}, {@code fire_at} і правило за webId — без payload, якого конфлікт не потребує. */
+  private static NotificationInfo selectKeyByWebId(StatementCache statements, int webId)
+      throws SQLException {
+    PreparedStatement pstmt =
+        statements.prepare("SELECT id, fire_at, recurrence FROM notifications WHERE webId = ?");
+    pstmt.setInt(1, webId);
+    try (ResultSet rs = pstmt.executeQuery()) {
+      return rs.next()
+          ? new NotificationInfo(rs.getInt(1), webId, null, null, rs.getLong(2), rs.getString(3))
+          : null;
+    }
+  }
+
+  /** Пошук за унікальним webId одним і тим самим підготовленим запитом. */
+  private NotificationInfo selectByWebId(StatementCache statements, int webId)
+      throws SQLException {
+    PreparedStatement pstmt = statements.prepare("SELECT * FROM notifications WHERE webId = ?");
+    pstmt.setInt(1, webId);
+    try (ResultSet rs = pstmt.executeQuery()) {
+      return rs.next() ? mapNotification(rs) : null;
+    }
+  }
+
+  @Override
   public NotificationInfo upsertNotificationByWebId(NotificationInfo info) {
     if (info == null || info.getWebId() <= 0) {
       Logger.warn("Skipping upsert for notification without webId.");
       return null;
     }
 
-    NotificationInfo existing = getNotificationByWebId(info.getWebId());
+    flushWrites();
+    NotificationInfo existing;
+    synchronized (this) {
+      try {
+        existing = selectByWebId(statements, info.getWebId());
+        if (existing == null) {
+          insertRow(info);
+        }
+      } catch (SQLException e) {
+        Logger.error(
+            "Failed to store notification with webId " + info.getWebId() + ": " + e.getMessage());
+        return null;
+      }
+    }
     if (existing == null) {
-      addNotification(info);
+      inserted(info);
       return info;
     }
 
-    String sql = "UPDATE notifications SET title = ?, payload = ?, fire_at = ? WHERE webId = ?";
+    long fireAt = NotificationInfo.syncedFireAt(existing, info);
+
+    String sql =
+        "UPDATE notifications SET title = ?, payload = ?, fire_at = ?, recurrence = ?"
+            + " WHERE webId = ?";
     assert conn != null;
-    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-      pstmt.setString(1, info.getTitle());
-      if (info.getPayload() == null) {
-        pstmt.setNull(2, Types.VARCHAR);
-      } else {
-        pstmt.setString(2, info.getPayload());
+    synchronized (this) {
+      try {
+        PreparedStatement pstmt = statements.prepare(sql);
+        pstmt.setString(1, info.getTitle());
+        PayloadColumn.bind(pstmt, 2, info.getPayload(), compressPayloadsAbove);
+        pstmt.setLong(3, fireAt);
+        pstmt.setString(4, info.getRecurrence());
+        pstmt.setInt(5, info.getWebId());
+        pstmt.executeUpdate();
+        existing.setTitle(info.getTitle());
+        existing.setPayload(info.getPayload());
+        existing.setFireAt(fireAt);
+        existing.setRecurrence(info.getRecurrence());
+        Logger.info("Notification updated in db: " + existing.toString());
+      } catch (SQLException e) {
+        Logger.error(
+            "Failed to update notification with webId " + info.getWebId() + ": " + e.getMessage());
       }
-      pstmt.setLong(3, info.getFireAt());
-      pstmt.setInt(4, info.getWebId());
-      pstmt.executeUpdate();
-      existing.setTitle(info.getTitle());
-      existing.setPayload(info.getPayload());
-      existing.setFireAt(info.getFireAt());
-      Logger.info("Notification updated in db: " + existing.toString());
-    } catch (SQLException e) {
-      Logger.error(
-          "Failed to update notification with webId " + info.getWebId() + ": " + e.getMessage());
     }
     return existing;
   }
+
+  @FunctionalInterface
+  private interface SqlWork {
+    void run() throws SQLException;
+  }
+
+  /** Виконує роботу в одній транзакції на з'єднанні записувача; викликати під монітором. */
+  private void inTransaction(SqlWork work) throws SQLException {
+    assert conn != null;
+    conn.setAutoCommit(false);
+    try {
+      work.run();
+      conn.commit();
+    } catch (SQLException | RuntimeException e) {
+      conn.rollback();
+      throw e;
+    } finally {
+      conn.setAutoCommit(true);
+    }
+  }
 }
@@ -0,0 +1,152 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import logger.Logger;
+import structures.NotificationInfo;
+
+/**
+ * Архів спрацьованих сповіщень у SQLite, поділений на добові таблиці {@code fired_YYYYMMDD} за
+ * днем спрацювання (UTC).
+ *
+ * <p>Рядки лише дописуються в таблицю поточного дня, тож жива таблиця {@code notifications} не
+ * росте, а прострочена доба прибирається одним {@code DROP TABLE} замість {@code DELETE} по
+ * рядках. Звільнені сторінки повертає {@code PRAGMA incremental_vacuum} невеликими порціями під
+ * час обслуговування — не частіше ніж раз на {@link #MAINTENANCE_INTERVAL_MILLIS}. Усі методи
+ * викликаються на з'єднанні записувача під монітором {@link DataBaseWrapper}.
+ */
+final class FiredArchive {
+  static final String PREFIX = "fired_";
+  static final long MAINTENANCE_INTERVAL_MILLIS = 60 * 60 * 1000L;
+  /** Сторінок за один прохід: обмежує паузу записувача, решта звільниться наступного разу. */
+  static final int VACUUM_PAGES = 2048;
+
+  private static final DateTimeFormatter SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+  private final int retentionDays;
+  private final Set<LocalDate> created = new HashSet<>();
+  private long nextMaintenanceMillis;
+
+  FiredArchive(int retentionDays) {
+    if (retentionDays <= 0) {
+      throw new IllegalArgumentException("Archive retention must be positive: " + retentionDays);
+    }
+    this.retentionDays = retentionDays;
+  }
+
+  int retentionDays() {
+    return retentionDays;
+  }
+
+  static LocalDate dayOf(long epochMillis) {
+    return Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC).toLocalDate();
+  }
+
+  static String tableName(LocalDate day) {
+    return PREFIX + SUFFIX.format(day);
+  }
+
+  /** Дописує спрацьовані рядки в таблицю доби {@code firedAtMillis}, створюючи її за потреби. */
+  void append(
+      Connection conn,
+      StatementCache statements,
+      List<NotificationInfo> fired,
+      long firedAtMillis,
+      int compressAbove)
+      throws SQLException {
+    LocalDate day = dayOf(firedAtMillis);
+    String table = tableName(day);
+    if (!created.contains(day)) {
+      try (Statement stmt = conn.createStatement()) {
+        stmt.execute(
+            "CREATE TABLE IF NOT EXISTS " + table + " ("
+                + "id INTEGER NOT NULL, webId INTEGER, title TEXT, payload TEXT,"
+                + " fire_at INTEGER NOT NULL, recurrence TEXT, fired_at INTEGER NOT NULL)");
+      }
+      created.add(day);
+    }
+    PreparedStatement pstmt =
+        statements.prepare(
+            "INSERT INTO " + table
+                + " (id, webId, title, payload, fire_at, recurrence, fired_at)"
+                + " VALUES (?, ?, ?, ?, ?, ?, ?)");
+    for (NotificationInfo n : fired) {
+      pstmt.setInt(1, n.getId());
+      pstmt.setInt(2, n.getWebId());
+      pstmt.setString(3, n.getTitle());
+      PayloadColumn.bind(pstmt, 4, n.getPayload(), compressAbove);
+      pstmt.setLong(5, n.getFireAt());
+      pstmt.setString(6, n.getRecurrence());
+      pstmt.setLong(7, firedAtMillis / 1000);
+      pstmt.addBatch();
+    }
+    pstmt.executeBatch();
+  }
+
+  /** Чи настав час для {@link #maintain}. */
+  boolean maintenanceDue(long nowMillis) {
+    return nowMillis >= nextMaintenanceMillis;
+  }
+
+  /**
+   * Видаляє доби, старші за вікно зберігання, і повертає частину вільних сторінок файлу.
+   *
+   * @return кількість видалених діб
+   */
+  int maintain(Connection conn, long nowMillis) throws SQLException {
+    nextMaintenanceMillis = nowMillis + MAINTENANCE_INTERVAL_MILLIS;
+    LocalDate oldestKept = dayOf(nowMillis).minusDays(retentionDays - 1L);
+    int dropped = 0;
+    try (Statement stmt = conn.createStatement()) {
+      for (LocalDate day : partitions(conn)) {
+        if (day.isBefore(oldestKept)) {
+          stmt.execute("DROP TABLE IF EXISTS " + tableName(day));
+          created.remove(day);
+          dropped++;
+        }
+      }
+      // incremental_vacuum звільняє по сторінці на кожен крок запиту — дочитуємо його до кінця.
+      try (ResultSet rs = stmt.executeQuery("PRAGMA incremental_vacuum(" + VACUUM_PAGES + ")")) {
+        while (rs.next()) {
+          // лише просуваємо запит
+        }
+      }
+    }
+    if (dropped > 0) {
+      Logger.info("Dropped " + dropped + " expired fired-notification partitions.");
+    }
+    return dropped;
+  }
+
+  /** Доби, для яких у базі є таблиця архіву, від найстарішої. */
+  static List<LocalDate> partitions(Connection conn) throws SQLException {
+    List<LocalDate> days = new ArrayList<>();
+    String query =
+        "SELECT name FROM sqlite_master WHERE type = 'table' AND name LIKE 'fired\\_%' ESCAPE '\\'"
+            + " ORDER BY name";
+    try (Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery(query)) {
+      while (rs.next()) {
+        String name = rs.getString(1);
+        try {
+          days.add(LocalDate.parse(name.substring(PREFIX.length()), SUFFIX));
+        } catch (DateTimeParseException e) {
+          // чужа таблиця з тим самим префіксом
+        }
+      }
+    }
+    return days;
+  }
+}
@@ -0,0 +1,411 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.OptionalLong;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import logger.Logger;
+import structures.NotificationInfo;
+
+/**
+ * {@link NotificationStore} повністю в пам'яті: для тестів, бенчмарків і вузлів, яким не потрібно
+ * переживати перезапуск.
+ *
+ * <p>Упорядкована множина за {@code (fire_at, id)} дає ті самі keyset-сторінки, що й індекс SQLite,
+ * а мапи за {@code id} та {@code webId} — пошук за O(1). Читання йдуть паралельно під спільним
+ * замком, записи — під ексклюзивним; слухач вставок викликається вже поза замком.
+ */
+public class InMemoryNotificationStore implements NotificationStore {
+  private static final Comparator<NotificationInfo> ORDER =
+      Comparator.comparingLong(NotificationInfo::getFireAt)
+          .thenComparingInt(NotificationInfo::getId);
+
+  private final NavigableSet<NotificationInfo> ordered = new TreeSet<>(ORDER);
+  private final Map<Integer, NotificationInfo> byId = new HashMap<>();
+  private final Map<Integer, NotificationInfo> byWebId = new HashMap<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private long sequence;
+  private long changes;
+  private volatile Consumer<NotificationInfo> insertListener;
+
+  @Override
+  public void setInsertListener(Consumer<NotificationInfo> listener) {
+    this.insertListener = listener;
+  }
+
+  @Override
+  public void makeDb() {}
+
+  @Override
+  public void closeDb() {}
+
+  @Override
+  public ArrayList<NotificationInfo> getNotificationsAfter(
+      long fireAt, int id, long untilFireAt, int limit) {
+    ArrayList<NotificationInfo> page = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      for (NotificationInfo n : ordered.tailSet(probe(fireAt, id), false)) {
+        if (page.size() >= limit || n.getFireAt() >= untilFireAt) {
+          break;
+        }
+        page.add(copy(n));
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return page;
+  }
+
+  @Override
+  public FireTimeStats fireTimeStats(long fromFireAt, long untilFireAt) {
+    lock.readLock().lock();
+    try {
+      if (fromFireAt >= untilFireAt) {
+        return new FireTimeStats(0, OptionalLong.empty(), OptionalLong.empty());
+      }
+      NavigableSet<NotificationInfo> range =
+          ordered.subSet(
+              probe(fromFireAt, Integer.MIN_VALUE),
+              true,
+              probe(untilFireAt, Integer.MIN_VALUE),
+              false);
+      if (range.isEmpty()) {
+        return new FireTimeStats(0, OptionalLong.empty(), OptionalLong.empty());
+      }
+      return new FireTimeStats(
+          range.size(),
+          OptionalLong.of(range.first().getFireAt()),
+          OptionalLong.of(range.last().getFireAt()));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public OptionalLong earliestFireAt() {
+    lock.readLock().lock();
+    try {
+      return ordered.isEmpty()
+          ? OptionalLong.empty()
+          : OptionalLong.of(ordered.first().getFireAt());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public OptionalLong latestFireAt() {
+    lock.readLock().lock();
+    try {
+      return ordered.isEmpty()
+          ? OptionalLong.empty()
+          : OptionalLong.of(ordered.last().getFireAt());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public long countNotifications() {
+    lock.readLock().lock();
+    try {
+      return byId.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public long lastInsertedId() {
+    lock.readLock().lock();
+    try {
+      return sequence;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public long changeCount() {
+    lock.readLock().lock();
+    try {
+      return changes;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void addNotification(NotificationInfo n) {
+    boolean added;
+    lock.writeLock().lock();
+    try {
+      added = insertRow(n);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    if (added) {
+      inserted(n);
+    }
+  }
+
+  @Override
+  public void deleteNotifications(List<Integer> ids) {
+    if (ids == null || ids.isEmpty()) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      for (int id : ids) {
+        remove(id);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void rescheduleNotifications(List<NotificationInfo> next) {
+    if (next == null || next.isEmpty()) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      for (NotificationInfo n : next) {
+        move(n.getId(), n.getFireAt());
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public NotificationInfo getNotificationByWebId(int webId) {
+    if (webId <= 0) {
+      return null;
+    }
+    lock.readLock().lock();
+    try {
+      NotificationInfo n = byWebId.get(webId);
+      return n == null ? null : copy(n);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public Map<Integer, String> getPayloads(List<Integer> ids) {
+    Map<Integer, String> payloads = new HashMap<>();
+    lock.readLock().lock();
+    try {
+      for (int id : ids) {
+        NotificationInfo n = byId.get(id);
+        if (n != null) {
+          payloads.put(id, n.getPayload());
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return payloads;
+  }
+
+  @Override
+  public List<NotificationInfo> upsertAll(List<NotificationInfo> infos) {
+    List<NotificationInfo> stored = new ArrayList<>(infos.size());
+    lock.writeLock().lock();
+    try {
+      for (NotificationInfo info : infos) {
+        if (info != null && info.getWebId() > 0) {
+          stored.add(copy(upsert(info)));
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+    return stored;
+  }
+
+  @Override
+  public NotificationInfo upsertNotificationByWebId(NotificationInfo info) {
+    if (info == null || info.getWebId() <= 0) {
+      return null;
+    }
+    Upserted result;
+    lock.writeLock().lock();
+    try {
+      result = upsertRow(info);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    if (result.created()) {
+      inserted(info);
+      return info;
+    }
+    return result.row();
+  }
+
+  /** Результат {@link #upsertRow}: копія збереженого рядка і чи це нова вставка. */
+  record Upserted(NotificationInfo row, boolean created) {}
+
+  /**
+   * Вставляє рядок, проставляє в {@code n} виданий {@code id}, але слухача не повідомляє.
+   * Викликати під записом.
+   *
+   * @return {@code false}, якщо такий webId уже є
+   */
+  final boolean insertRow(NotificationInfo n) {
+    if (n.getWebId() > 0 && byWebId.containsKey(n.getWebId())) {
+      Logger.error("Failed to add notification: webId " + n.getWebId() + " already stored.");
+      return false;
+    }
+    n.setId(nextId());
+    put(copy(n));
+    return true;
+  }
+
+  /** Як {@link #upsertNotificationByWebId}, але без слухача. Викликати під записом. */
+  final Upserted upsertRow(NotificationInfo info) {
+    boolean created = !byWebId.containsKey(info.getWebId());
+    NotificationInfo row = copy(upsert(info));
+    if (created) {
+      info.setId(row.getId());
+    }
+    return new Upserted(row, created);
+  }
+
+  /** Конфлікт {@code fire_at} вирішує {@link NotificationInfo#syncedFireAt}. Викликати під записом. */
+  private NotificationInfo upsert(NotificationInfo info) {
+    NotificationInfo existing = byWebId.get(info.getWebId());
+    if (existing == null) {
+      NotificationInfo row = copy(info);
+      row.setId(nextId());
+      put(row);
+      return row;
+    }
+    long fireAt = NotificationInfo.syncedFireAt(existing, info);
+    ordered.remove(existing);
+    existing.setTitle(info.getTitle());
+    existing.setPayload(info.getPayload());
+    existing.setFireAt(fireAt);
+    existing.setRecurrence(info.getRecurrence());
+    ordered.add(existing);
+    changes++;
+    return existing;
+  }
+
+  /** Повідомляє слухача вставок; викликати вже поза замком. */
+  final void inserted(NotificationInfo n) {
+    Consumer<NotificationInfo> listener = insertListener;
+    if (listener != null) {
+      listener.accept(n);
+    }
+  }
+
+  // Операції над станом для журналу: викликаються під записом і не повідомляють слухача.
+
+  final void lockWrites() {
+    lock.writeLock().lock();
+  }
+
+  final void unlockWrites() {
+    lock.writeLock().unlock();
+  }
+
+  /**
+   * Кладе рядок з уже виданим {@code id}, замінюючи попередній з тим самим id. Заміна — одна зміна,
+   * як і оновлення в {@link #upsert}: відтворений журнал дає той самий {@link #changeCount()}.
+   */
+  final void put(NotificationInfo row) {
+    unlink(row.getId());
+    if (row.getWebId() > 0) {
+      NotificationInfo other = byWebId.get(row.getWebId());
+      if (other != null) {
+        unlink(other.getId());
+      }
+      byWebId.put(row.getWebId(), row);
+    }
+    byId.put(row.getId(), row);
+    ordered.add(row);
+    sequence = Math.max(sequence, row.getId());
+    changes++;
+  }
+
+  final boolean remove(int id) {
+    if (!unlink(id)) {
+      return false;
+    }
+    changes++;
+    return true;
+  }
+
+  private boolean unlink(int id) {
+    NotificationInfo row = byId.remove(id);
+    if (row == null) {
+      return false;
+    }
+    ordered.remove(row);
+    if (row.getWebId() > 0 && byWebId.get(row.getWebId()) == row) {
+      byWebId.remove(row.getWebId());
+    }
+    return true;
+  }
+
+  final boolean move(int id, long fireAt) {
+    NotificationInfo row = byId.get(id);
+    if (row == null) {
+      return false;
+    }
+    ordered.remove(row);
+    row.setFireAt(fireAt);
+    ordered.add(row);
+    changes++;
+    return true;
+  }
+
+  final NotificationInfo row(int id) {
+    NotificationInfo row = byId.get(id);
+    return row == null ? null : copy(row);
+  }
+
+  final long sequence() {
+    return sequence;
+  }
+
+  final void restoreSequence(long value) {
+    sequence = Math.max(sequence, value);
+  }
+
+  /** Копії всіх рядків у порядку {@code (fire_at, id)}; викликати під записом або читанням. */
+  final List<NotificationInfo> rows() {
+    List<NotificationInfo> rows = new ArrayList<>(ordered.size());
+    for (NotificationInfo n : ordered) {
+      rows.add(copy(n));
+    }
+    return rows;
+  }
+
+  private int nextId() {
+    if (sequence >= Integer.MAX_VALUE) {
+      throw new IllegalStateException("Notification id space exhausted");
+    }
+    return (int) ++sequence;
+  }
+
+  private static NotificationInfo probe(long fireAt, int id) {
+    return new NotificationInfo(id, 0, null, null, fireAt);
+  }
+
+  static NotificationInfo copy(NotificationInfo n) {
+    return new NotificationInfo(
+        n.getId(), n.getWebId(), n.getTitle(), n.getPayload(), n.getFireAt(), n.getRecurrence());
+  }
+}
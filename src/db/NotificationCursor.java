@@ -0,0 +1,88 @@
+package db;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import structures.NotificationInfo;
+
+/**
+ * Обхід таблиці в порядку {@code (fire_at, id)} сторінками по {@code fetchSize} рядків.
+ *
+ * <p>Кожна сторінка — окремий короткий keyset-запит, тож між сторінками не тримаються ні відкритий
+ * {@code ResultSet}, ні з'єднання, ні монітор обгортки: годинник і записи не чекають на повільного
+ * споживача, а в пам'яті лише одна сторінка. Рядки, додані позаду курсора під час обходу, не
+ * потрапляють у нього.
+ */
+final class NotificationCursor implements Iterator<NotificationInfo> {
+
+  @FunctionalInterface
+  interface PageReader {
+    List<NotificationInfo> after(long fireAt, int id, int limit) throws SQLException;
+  }
+
+  private final PageReader reader;
+  private final int fetchSize;
+  private final long untilFireAt;
+  private List<NotificationInfo> page = List.of();
+  private int position;
+  private long cursorFireAt;
+  private int cursorId;
+  private boolean exhausted;
+
+  /**
+   * @param fromFireAt перший {@code fire_at}, що потрапляє в обхід
+   * @param untilFireAt {@code fire_at}, з якого обхід зупиняється (не включно)
+   */
+  NotificationCursor(PageReader reader, int fetchSize, long fromFireAt, long untilFireAt) {
+    if (fetchSize <= 0) {
+      throw new IllegalArgumentException("Fetch size must be positive: " + fetchSize);
+    }
+    this.reader = reader;
+    this.fetchSize = fetchSize;
+    this.untilFireAt = untilFireAt;
+    this.cursorFireAt = fromFireAt;
+    this.cursorId = Integer.MIN_VALUE;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (position >= page.size() && !exhausted) {
+      fetch();
+    }
+    if (position < page.size() && page.get(position).getFireAt() < untilFireAt) {
+      return true;
+    }
+    exhausted = true;
+    page = List.of();
+    position = 0;
+    return false;
+  }
+
+  @Override
+  public NotificationInfo next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return page.get(position++);
+  }
+
+  private void fetch() {
+    try {
+      page = reader.after(cursorFireAt, cursorId, fetchSize);
+    } catch (SQLException e) {
+      exhausted = true;
+      page = List.of();
+      throw new IllegalStateException("Failed to read notifications page: " + e.getMessage(), e);
+    }
+    position = 0;
+    if (page.size() < fetchSize) {
+      exhausted = true;
+    }
+    if (!page.isEmpty()) {
+      NotificationInfo last = page.get(page.size() - 1);
+      cursorFireAt = last.getFireAt();
+      cursorId = last.getId();
+    }
+  }
+}
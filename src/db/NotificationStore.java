@@ -0,0 +1,206 @@
+package db;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import structures.NotificationInfo;
+
+/**
+ * Локальне сховище сповіщень, з яким працюють {@code Clock}, {@code Main} і {@code AppWindow}.
+ *
+ * <p>Рядки впорядковані за {@code (fire_at, id)}; {@code id} видає сховище, {@code webId > 0}
+ * унікальний. Повернені об'єкти — копії: зміни в них не потрапляють у сховище без явного запису.
+ * Реалізації потокобезпечні.
+ */
+public interface NotificationStore {
+
+  /**
+   * Кількість і крайні {@code fire_at} у діапазоні. Значення в тих самих одиницях, що й {@code
+   * fire_at}; для порожнього діапазону межі порожні.
+   */
+  record FireTimeStats(long count, OptionalLong earliestFireAt, OptionalLong latestFireAt) {}
+
+  /** Викликається після кожної вставки через {@link #addNotification}, уже з виданим {@code id}. */
+  void setInsertListener(Consumer<NotificationInfo> listener);
+
+  /** Готує сховище до роботи: схема, відновлення з диска тощо. */
+  void makeDb();
+
+  void closeDb();
+
+  /** Дочікується, доки прийняті записи стануть видимими й збереженими, наскільки вміє бекенд. */
+  default void flush() {}
+
+  /**
+   * Keyset-сторінка: рядки після {@code (fireAt, id)} з {@code fire_at < untilFireAt}. Наступну
+   * сторінку дає виклик з {@code fire_at} та {@code id} останнього рядка.
+   */
+  ArrayList<NotificationInfo> getNotificationsAfter(
+      long fireAt, int id, long untilFireAt, int limit);
+
+  /** Наступна сторінка за keyset-курсором {@code (fire_at, id)} без перечитування попередніх. */
+  default ArrayList<NotificationInfo> getNotificationsAfter(long fireAt, int id, int limit) {
+    return getNotificationsAfter(fireAt, id, Long.MAX_VALUE, limit);
+  }
+
+  /**
+   * Перша сторінка записів з {@code fromFireAt <= fire_at < untilFireAt}, напр. «що спрацює
+   * протягом години»; далі — {@link #getNotificationsAfter(long, int, long, int)}.
+   */
+  default ArrayList<NotificationInfo> getNotificationsBetween(
+      long fromFireAt, long untilFireAt, int limit) {
+    return getNotificationsAfter(fromFireAt, Integer.MIN_VALUE, untilFireAt, limit);
+  }
+
+  default ArrayList<NotificationInfo> getEarliestNotifications(int sampleSize) {
+    return getNotificationsAfter(Long.MIN_VALUE, Integer.MIN_VALUE, sampleSize);
+  }
+
+  /** Усі записи в порядку спрацювання; див. {@link #streamNotifications(long, long, int)}. */
+  default Stream<NotificationInfo> streamNotifications(int fetchSize) {
+    return streamNotifications(Long.MIN_VALUE, Long.MAX_VALUE, fetchSize);
+  }
+
+  /**
+   * Лінивий обхід записів з {@code fromFireAt} (включно) до {@code untilFireAt} (не включно) в
+   * порядку {@code (fire_at, id)} сторінками по {@code fetchSize} рядків.
+   */
+  default Stream<NotificationInfo> streamNotifications(
+      long fromFireAt, long untilFireAt, int fetchSize) {
+    NotificationCursor cursor =
+        new NotificationCursor(
+            (fireAt, id, limit) -> getNotificationsAfter(fireAt, id, untilFireAt, limit),
+            fetchSize,
+            fromFireAt,
+            untilFireAt);
+    return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(
+            cursor, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL),
+        false);
+  }
+
+  /**
+   * @return статистика діапазону {@code fromFireAt <= fire_at < untilFireAt}; при помилці —
+   *     {@code count = -1}, як у {@link #countNotifications()}
+   */
+  FireTimeStats fireTimeStats(long fromFireAt, long untilFireAt);
+
+  /** Найближчий {@code fire_at} у сховищі — «коли наступне спрацювання». */
+  default OptionalLong earliestFireAt() {
+    return fireTimeStats(Long.MIN_VALUE, Long.MAX_VALUE).earliestFireAt();
+  }
+
+  default OptionalLong latestFireAt() {
+    return fireTimeStats(Long.MIN_VALUE, Long.MAX_VALUE).latestFireAt();
+  }
+
+  /** Скільки записів спрацює в {@code fromFireAt <= fire_at < untilFireAt}. */
+  default long countNotificationsBetween(long fromFireAt, long untilFireAt) {
+    return fireTimeStats(fromFireAt, untilFireAt).count();
+  }
+
+  default boolean thereIsAEarlierNotification(long fireAt) {
+    OptionalLong earliest = earliestFireAt();
+    return earliest.isPresent() && earliest.getAsLong() < fireAt;
+  }
+
+  /** @return кількість записів або -1 при помилці */
+  long countNotifications();
+
+  /** Останній виданий {@code id}; не зменшується після видалень. */
+  long lastInsertedId();
+
+  /**
+   * Лічильник змін рядків: зростає з кожною вставкою, оновленням і видаленням.
+   *
+   * @return значення лічильника або -1 при помилці
+   */
+  long changeCount();
+
+  /** Зберігає запис, проставляє в {@code n} виданий {@code id} і повідомляє слухача вставок. */
+  void addNotification(NotificationInfo n);
+
+  default void deleteNotification(int id) {
+    deleteNotifications(List.of(id));
+  }
+
+  /** Видаляє кілька записів однією операцією. */
+  void deleteNotifications(List<Integer> ids);
+
+  /**
+   * Переносить повторювані сповіщення на наступне спрацювання.
+   *
+   * @param next копії з новим {@code fireAt} і тими самими id
+   */
+  void rescheduleNotifications(List<NotificationInfo> next);
+
+  /**
+   * Зберігає історію спрацювань перед видаленням або перенесенням рядків. Бекенди без архіву
+   * нічого не роблять.
+   *
+   * @param fired рядки в тому вигляді, в якому вони спрацювали
+   */
+  default void archiveFired(List<NotificationInfo> fired, long firedAtMillis) {}
+
+  NotificationInfo getNotificationByWebId(int webId);
+
+  /**
+   * Дочитує payload для легких записів черги ({@link NotificationInfo#withoutPayload()}) перед
+   * спрацюванням.
+   *
+   * @return payload за {@code id}; видалених рядків у мапі немає
+   */
+  Map<Integer, String> getPayloads(List<Integer> ids);
+
+  /**
+   * Зберігає результат віддаленої синхронізації однією операцією й повертає збережені рядки з
+   * локальними id. Локально пораховане наступне спрацювання того самого правила повторення не
+   * відкочується. Слухача вставок не викликає.
+   *
+   * @return збережені рядки або {@code null}, якщо запис не вдався
+   */
+  List<NotificationInfo> upsertAll(List<NotificationInfo> infos);
+
+  NotificationInfo upsertNotificationByWebId(NotificationInfo info);
+
+  /**
+   * Бекенд за назвою: {@code sqlite} (за замовчуванням, {@code sample.db}), {@code
+   * sqlite:<файл|jdbc-url>}, {@code memory} або {@code log[:<файл>]}.
+   */
+  static NotificationStore create(String spec) {
+    if (spec == null || spec.isBlank()) {
+      return new DataBaseWrapper();
+    }
+    String trimmed = spec.trim();
+    int colon = trimmed.indexOf(':');
+    String kind = (colon < 0 ? trimmed : trimmed.substring(0, colon)).toLowerCase();
+    String argument = colon < 0 ? "" : trimmed.substring(colon + 1).trim();
+    return switch (kind) {
+      case "sqlite" -> {
+        if (argument.isEmpty()) {
+          yield new DataBaseWrapper();
+        }
+        yield new DataBaseWrapper(
+            argument.startsWith("jdbc:") ? argument : "jdbc:sqlite:" + argument);
+      }
+      case "memory" -> new InMemoryNotificationStore();
+      case "log" -> {
+        Path path = Path.of(argument.isEmpty() ? "notifications.journal" : argument);
+        try {
+          yield new AppendLogNotificationStore(path);
+        } catch (IOException e) {
+          throw new IllegalArgumentException("Cannot open notification log " + path, e);
+        }
+      }
+      default -> throw new IllegalArgumentException("Unknown notification storage: " + spec);
+    };
+  }
+}
@@ -0,0 +1,48 @@
+package db;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import structures.PayloadCompression;
+
+/**
+ * Колонка {@code payload}: звичайний текст або, для тіл понад поріг стиснення, zlib-BLOB. SQLite
+ * не приводить BLOB до {@code text}-афінності, тож обидва види співіснують без міграції, а старі
+ * рядки читаються як є.
+ */
+final class PayloadColumn {
+  /** Поріг, за якого стиснення вимкнене. */
+  static final int NO_COMPRESSION = -1;
+
+  private PayloadColumn() {}
+
+  static void bind(PreparedStatement pstmt, int index, String payload, int compressAbove)
+      throws SQLException {
+    if (payload == null) {
+      pstmt.setNull(index, Types.VARCHAR);
+      return;
+    }
+    byte[] packed =
+        compressAbove == NO_COMPRESSION
+            ? null
+            : PayloadCompression.compressIfLarger(payload, compressAbove);
+    if (packed == null) {
+      pstmt.setString(index, payload);
+    } else {
+      pstmt.setBytes(index, packed);
+    }
+  }
+
+  static String read(ResultSet rs) throws SQLException {
+    Object raw = rs.getObject("payload");
+    if (!(raw instanceof byte[] packed)) {
+      return raw == null ? null : raw.toString();
+    }
+    try {
+      return PayloadCompression.inflate(packed);
+    } catch (IllegalArgumentException e) {
+      throw new SQLException(e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import structures.NotificationInfo;
+
+/**
+ * Що змінять ще не закомічені операції {@link WriteBehindQueue}: id наявних рядків (видалення,
+ * перенесення), нові позиції {@code fire_at} (вставки, перенесення) і webId вставок.
+ *
+ * <p>За цим читання вирішує, чи мусить воно спершу дочекатися коміту, щоб побачити власні записи:
+ * сторінка за курсором, якої не торкається жоден відкладений запис, читається одразу, і групування
+ * записів не ламається на кожному проході годинника. Не потокобезпечний — власник тримає його під
+ * своїм замком, а читачам віддає {@link #copy()}.
+ */
+final class PendingFootprints {
+  static final PendingFootprints EMPTY = new PendingFootprints();
+
+  /** Слід однієї операції; {@link #NONE} — операція не торкається таблиці {@code notifications}. */
+  record Footprint(
+      List<Integer> ids, List<Long> fireAts, List<Integer> webIds, int inserts, int deletes) {
+    static final Footprint NONE = new Footprint(List.of(), List.of(), List.of(), 0, 0);
+
+    static Footprint insert(NotificationInfo n) {
+      return new Footprint(
+          List.of(),
+          List.of(n.getFireAt()),
+          n.getWebId() > 0 ? List.of(n.getWebId()) : List.of(),
+          1,
+          0);
+    }
+
+    static Footprint delete(List<Integer> ids) {
+      return new Footprint(List.copyOf(ids), List.of(), List.of(), 0, ids.size());
+    }
+
+    static Footprint reschedule(List<NotificationInfo> next) {
+      List<Integer> ids = new ArrayList<>(next.size());
+      List<Long> fireAts = new ArrayList<>(next.size());
+      for (NotificationInfo n : next) {
+        ids.add(n.getId());
+        fireAts.add(n.getFireAt());
+      }
+      return new Footprint(ids, fireAts, List.of(), 0, 0);
+    }
+
+    boolean isNone() {
+      return ids.isEmpty() && fireAts.isEmpty() && webIds.isEmpty() && inserts == 0 && deletes == 0;
+    }
+  }
+
+  private final Map<Integer, Integer> ids = new HashMap<>();
+  private final Map<Integer, Integer> webIds = new HashMap<>();
+  private final TreeMap<Long, Integer> fireAts = new TreeMap<>();
+  private int inserts;
+  private int deletes;
+  private int writes;
+
+  void add(Footprint footprint) {
+    if (footprint.isNone()) {
+      return;
+    }
+    footprint.ids().forEach(id -> ids.merge(id, 1, Integer::sum));
+    footprint.webIds().forEach(webId -> webIds.merge(webId, 1, Integer::sum));
+    footprint.fireAts().forEach(fireAt -> fireAts.merge(fireAt, 1, Integer::sum));
+    inserts += footprint.inserts();
+    deletes += footprint.deletes();
+    writes++;
+  }
+
+  void remove(Footprint footprint) {
+    if (footprint.isNone()) {
+      return;
+    }
+    footprint.ids().forEach(id -> release(ids, id));
+    footprint.webIds().forEach(webId -> release(webIds, webId));
+    footprint.fireAts().forEach(fireAt -> release(fireAts, fireAt));
+    inserts -= footprint.inserts();
+    deletes -= footprint.deletes();
+    writes--;
+  }
+
+  PendingFootprints copy() {
+    if (writes == 0) {
+      return EMPTY;
+    }
+    PendingFootprints copy = new PendingFootprints();
+    copy.ids.putAll(ids);
+    copy.webIds.putAll(webIds);
+    copy.fireAts.putAll(fireAts);
+    copy.inserts = inserts;
+    copy.deletes = deletes;
+    copy.writes = writes;
+    return copy;
+  }
+
+  /** Чи чекає коміту хоч одна операція над {@code notifications}. */
+  boolean isEmpty() {
+    return writes == 0;
+  }
+
+  boolean touchesIds(Collection<Integer> candidates) {
+    if (ids.isEmpty()) {
+      return false;
+    }
+    for (Integer id : candidates) {
+      if (ids.containsKey(id)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Видалення чи перенесення наявних рядків: їхні старі позиції невідомі. */
+  boolean movesRows() {
+    return !ids.isEmpty();
+  }
+
+  boolean touchesWebId(int webId) {
+    return webIds.containsKey(webId);
+  }
+
+  /** Чи з'явиться рядок у {@code fromFireAt <= fire_at < untilFireAt}. */
+  boolean touchesFireAt(long fromFireAt, long untilFireAt) {
+    return fromFireAt < untilFireAt
+        && !fireAts.subMap(fromFireAt, true, untilFireAt, false).isEmpty();
+  }
+
+  boolean changesRowCount() {
+    return inserts > 0 || deletes > 0;
+  }
+
+  boolean insertsRows() {
+    return inserts > 0;
+  }
+
+  private static <K> void release(Map<K, Integer> counts, K key) {
+    counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+  }
+}
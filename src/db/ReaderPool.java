@@ -0,0 +1,101 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import logger.Logger;
+
+/**
+ * Невеликий пул з'єднань лише для читання до тієї самої бази у WAL-режимі.
+ *
+ * <p>Кожне з'єднання має власний {@link StatementCache} і в кожен момент належить одному потоку,
+ * тож читачі не чекають ні один одного, ні записувача. Якщо всі зайняті, запит чекає до {@code
+ * ACQUIRE_TIMEOUT_MILLIS}.
+ */
+final class ReaderPool implements AutoCloseable {
+  private static final long ACQUIRE_TIMEOUT_MILLIS = 5_000;
+
+  @FunctionalInterface
+  interface Query<T> {
+    T run(StatementCache statements) throws SQLException;
+  }
+
+  private record Reader(Connection conn, StatementCache statements) {}
+
+  private final List<Reader> all;
+  private final BlockingQueue<Reader> idle;
+  private volatile boolean closed;
+
+  ReaderPool(String url, int size, List<String> pragmas) throws SQLException {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Reader pool size must be positive: " + size);
+    }
+    List<Reader> opened = new ArrayList<>(size);
+    try {
+      for (int i = 0; i < size; i++) {
+        Connection conn = DriverManager.getConnection(url);
+        opened.add(new Reader(conn, new StatementCache(conn)));
+        try (Statement stmt = conn.createStatement()) {
+          for (String pragma : pragmas) {
+            stmt.execute(pragma);
+          }
+          stmt.execute("PRAGMA query_only = ON");
+        }
+      }
+    } catch (SQLException e) {
+      opened.forEach(ReaderPool::closeReader);
+      throw e;
+    }
+    this.all = List.copyOf(opened);
+    this.idle = new ArrayBlockingQueue<>(size, false, opened);
+  }
+
+  int size() {
+    return all.size();
+  }
+
+  <T> T read(Query<T> query) throws SQLException {
+    Reader reader;
+    try {
+      reader = closed ? null : idle.poll(ACQUIRE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for a read connection", e);
+    }
+    if (reader == null) {
+      throw new SQLException(closed ? "Reader pool is closed" : "No read connection available");
+    }
+    try {
+      return query.run(reader.statements());
+    } finally {
+      idle.offer(reader);
+      if (closed && idle.remove(reader)) {
+        closeReader(reader);
+      }
+    }
+  }
+
+  /** Закриває вільні з'єднання одразу, зайняті — коли читач їх поверне. */
+  @Override
+  public void close() {
+    closed = true;
+    List<Reader> free = new ArrayList<>();
+    idle.drainTo(free);
+    free.forEach(ReaderPool::closeReader);
+  }
+
+  private static void closeReader(Reader reader) {
+    reader.statements().close();
+    try {
+      reader.conn().close();
+    } catch (SQLException e) {
+      Logger.warn("Failed to close read connection: " + e.getMessage());
+    }
+  }
+}
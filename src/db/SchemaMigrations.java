@@ -0,0 +1,128 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import logger.Logger;
+
+/**
+ * Версійовані міграції схеми {@code notifications}.
+ *
+ * <p>Номер застосованої міграції зберігається в {@code PRAGMA user_version}. Кожен крок виконується
+ * в окремій транзакції разом з оновленням версії, тож обірваний запуск просто повторить його.
+ * Кроки ідемпотентні: бази, створені старими збірками без версії, проходять їх без помилок.
+ */
+final class SchemaMigrations {
+
+  @FunctionalInterface
+  private interface Step {
+    void apply(Statement stmt) throws SQLException;
+  }
+
+  /** Нові кроки лише додаються в кінець; індекс + 1 — номер версії. */
+  private static final List<Step> STEPS =
+      List.of(
+          SchemaMigrations::createTable,
+          stmt -> addColumnIfMissing(stmt, "recurrence", "text"),
+          SchemaMigrations::createIndexes,
+          SchemaMigrations::createChangeCounter);
+
+  private SchemaMigrations() {}
+
+  static void migrate(Connection conn) throws SQLException {
+    int version = currentVersion(conn);
+    if (version > STEPS.size()) {
+      Logger.warn(
+          "Database schema version " + version + " is newer than supported " + STEPS.size());
+      return;
+    }
+    for (int next = version + 1; next <= STEPS.size(); next++) {
+      boolean autoCommit = conn.getAutoCommit();
+      conn.setAutoCommit(false);
+      try (Statement stmt = conn.createStatement()) {
+        STEPS.get(next - 1).apply(stmt);
+        stmt.execute("PRAGMA user_version = " + next);
+        conn.commit();
+        Logger.info("Migrated database schema to version " + next + ".");
+      } catch (SQLException e) {
+        conn.rollback();
+        throw new SQLException("Migration to schema version " + next + " failed", e);
+      } finally {
+        conn.setAutoCommit(autoCommit);
+      }
+    }
+  }
+
+  private static int currentVersion(Connection conn) throws SQLException {
+    try (Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+      return rs.next() ? rs.getInt(1) : 0;
+    }
+  }
+
+  private static void createTable(Statement stmt) throws SQLException {
+    stmt.execute(
+        """
+        create table if not exists notifications(
+            id integer primary key autoincrement,
+            webId integer not null,
+            title text not null,
+            payload text,
+            fire_at integer not null  -- epoch seconds (UTC)
+        );
+        """);
+  }
+
+  private static void addColumnIfMissing(Statement stmt, String column, String type)
+      throws SQLException {
+    try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(notifications)")) {
+      while (rs.next()) {
+        if (column.equalsIgnoreCase(rs.getString("name"))) {
+          return;
+        }
+      }
+    }
+    stmt.execute("ALTER TABLE notifications ADD COLUMN " + column + " " + type);
+  }
+
+  /**
+   * {@code (fire_at, id)} обслуговує і сортування за часом, і keyset-курсор; webId унікальний лише
+   * для записів із сервера. Дублікати webId зі старих баз прибираються, лишається найновіший рядок.
+   */
+  private static void createIndexes(Statement stmt) throws SQLException {
+    int removed =
+        stmt.executeUpdate(
+            "DELETE FROM notifications WHERE webId > 0 AND id NOT IN"
+                + " (SELECT MAX(id) FROM notifications WHERE webId > 0 GROUP BY webId)");
+    if (removed > 0) {
+      Logger.warn("Removed " + removed + " duplicate notifications with the same webId.");
+    }
+    stmt.execute(
+        "CREATE INDEX IF NOT EXISTS idx_notifications_fire_at_id ON notifications(fire_at, id)");
+    stmt.execute(
+        "CREATE UNIQUE INDEX IF NOT EXISTS idx_notifications_web_id"
+            + " ON notifications(webId) WHERE webId > 0");
+  }
+
+  /**
+   * Лічильник змін {@code notifications} для перевірки знімка планувальника: тригери ловлять і
+   * {@code UPDATE}, яких не видно за кількістю рядків та {@code sqlite_sequence}.
+   */
+  private static void createChangeCounter(Statement stmt) throws SQLException {
+    stmt.execute(
+        "CREATE TABLE IF NOT EXISTS notification_changes"
+            + " (id INTEGER PRIMARY KEY CHECK (id = 1), changes INTEGER NOT NULL)");
+    stmt.execute("INSERT OR IGNORE INTO notification_changes (id, changes) VALUES (1, 0)");
+    for (String event : List.of("INSERT", "UPDATE", "DELETE")) {
+      stmt.execute(
+          "CREATE TRIGGER IF NOT EXISTS notifications_changed_"
+              + event.toLowerCase()
+              + " AFTER "
+              + event
+              + " ON notifications BEGIN"
+              + " UPDATE notification_changes SET changes = changes + 1 WHERE id = 1; END");
+    }
+  }
+}
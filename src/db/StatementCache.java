@@ -0,0 +1,98 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import logger.Logger;
+
+/**
+ * Підготовлені запити одного з'єднання, розібрані SQLite лише раз.
+ *
+ * <p>Живе стільки ж, скільки з'єднання: {@link #close()} закривається разом із ним. Не
+ * потокобезпечний — власник викликає його під своїм монітором. Запити повертаються відкритими;
+ * викликач не закриває їх, а лише свої {@code ResultSet}. Найдовше не вживані витісняються, щоб
+ * динамічні запити не накопичувалися.
+ */
+final class StatementCache implements AutoCloseable {
+  private static final int DEFAULT_CAPACITY = 32;
+
+  private final Connection conn;
+  private final Map<Key, PreparedStatement> statements;
+  private boolean closed;
+
+  StatementCache(Connection conn) {
+    this(conn, DEFAULT_CAPACITY);
+  }
+
+  StatementCache(Connection conn, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Statement cache capacity must be positive: " + capacity);
+    }
+    this.conn = conn;
+    this.statements =
+        new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+            if (size() <= capacity) {
+              return false;
+            }
+            closeQuietly(eldest.getValue());
+            return true;
+          }
+        };
+  }
+
+  PreparedStatement prepare(String sql) throws SQLException {
+    return prepare(sql, false);
+  }
+
+  /**
+   * @param generatedKeys чи потрібні {@code getGeneratedKeys()} після вставки
+   * @return запит з очищеними параметрами й пакетом
+   */
+  PreparedStatement prepare(String sql, boolean generatedKeys) throws SQLException {
+    if (closed) {
+      throw new SQLException("Statement cache is closed");
+    }
+    Key key = new Key(sql, generatedKeys);
+    PreparedStatement pstmt = statements.get(key);
+    if (pstmt != null && !pstmt.isClosed()) {
+      pstmt.clearParameters();
+      pstmt.clearBatch();
+      return pstmt;
+    }
+    pstmt =
+        generatedKeys
+            ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+            : conn.prepareStatement(sql);
+    statements.put(key, pstmt);
+    return pstmt;
+  }
+
+  int size() {
+    return statements.size();
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    List<PreparedStatement> open = new ArrayList<>(statements.values());
+    statements.clear();
+    open.forEach(StatementCache::closeQuietly);
+  }
+
+  private static void closeQuietly(PreparedStatement pstmt) {
+    try {
+      pstmt.close();
+    } catch (SQLException e) {
+      Logger.warn("Failed to close cached statement: " + e.getMessage());
+    }
+  }
+
+  private record Key(String sql, boolean generatedKeys) {}
+}
@@ -0,0 +1,255 @@
+package db;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import logger.Logger;
+
+/**
+ * Відкладений запис: викликач лише ставить операцію в чергу, а окремий потік {@code db-writer}
+ * комітить їх групами — коли набралося {@code maxBatch} або минуло {@code maxDelayMillis} від
+ * першої операції в групі.
+ *
+ * <p>{@link #flush()} чекає, доки все поставлене до виклику закомічено, тож читання після нього
+ * бачать власні записи. Якщо група не проходить — через {@link SQLException} чи будь-який інший
+ * виняток, — операції повторюються поодинці, щоб один зіпсований рядок не забрав із собою решту.
+ * Операції, що не пройшли й поодинці, відкидаються: їх видно в лозі на рівні error і в {@link
+ * #dropped()}.
+ *
+ * <p>Сліди поставлених операцій ({@link PendingFootprints}) дозволяють читанню чекати коміту лише
+ * тоді, коли відкладені записи справді зачіпають прочитане.
+ */
+final class WriteBehindQueue implements AutoCloseable {
+
+  @FunctionalInterface
+  interface Write {
+    void apply() throws SQLException;
+  }
+
+  /** Виконує всі операції групи в одній транзакції. */
+  @FunctionalInterface
+  interface Committer {
+    void commit(List<Write> batch) throws SQLException;
+  }
+
+  private record Pending(
+      String description,
+      PendingFootprints.Footprint footprint,
+      Write write,
+      Runnable afterCommit,
+      long seq) {}
+
+  private final int maxBatch;
+  private final long maxDelayNanos;
+  private final Committer committer;
+  private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+  private final PendingFootprints footprints = new PendingFootprints();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition changed = lock.newCondition();
+  private final Thread worker;
+  private long enqueuedSeq;
+  private long committedSeq;
+  private long dropped;
+  private int flushWaiters;
+  private boolean closed;
+
+  WriteBehindQueue(int maxBatch, long maxDelayMillis, Committer committer) {
+    if (maxBatch <= 0) {
+      throw new IllegalArgumentException("Write-behind batch size must be positive: " + maxBatch);
+    }
+    if (maxDelayMillis < 0) {
+      throw new IllegalArgumentException(
+          "Write-behind delay must not be negative: " + maxDelayMillis);
+    }
+    this.maxBatch = maxBatch;
+    this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+    this.committer = committer;
+    this.worker = new Thread(this::run, "db-writer");
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  /**
+   * @param footprint що змінить операція в {@code notifications}
+   * @param afterCommit виконується в потоці записувача після успішного коміту, може бути {@code
+   *     null}
+   */
+  void submit(
+      String description,
+      PendingFootprints.Footprint footprint,
+      Write write,
+      Runnable afterCommit) {
+    lock.lock();
+    try {
+      if (closed) {
+        throw new IllegalStateException("Write-behind queue is closed");
+      }
+      queue.add(new Pending(description, footprint, write, afterCommit, ++enqueuedSeq));
+      footprints.add(footprint);
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int pending() {
+    lock.lock();
+    try {
+      return (int) (enqueuedSeq - committedSeq);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Знімок слідів операцій, що ще чекають коміту чи відкидання. */
+  PendingFootprints footprints() {
+    lock.lock();
+    try {
+      return footprints.copy();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Скільки операцій відкинуто після невдалих повторів. */
+  long dropped() {
+    lock.lock();
+    try {
+      return dropped;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Чекає, доки все поставлене до виклику закомічено або відкинуто (див. {@link #dropped()}). З
+   * потоку записувача нічого не робить.
+   */
+  void flush() {
+    if (Thread.currentThread() == worker) {
+      return;
+    }
+    lock.lock();
+    try {
+      long target = enqueuedSeq;
+      flushWaiters++;
+      changed.signalAll();
+      try {
+        while (committedSeq < target && worker.isAlive()) {
+          changed.awaitUninterruptibly();
+        }
+      } finally {
+        flushWaiters--;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void run() {
+    while (true) {
+      List<Pending> batch = new ArrayList<>();
+      lock.lock();
+      try {
+        while (queue.isEmpty() && !closed) {
+          changed.awaitUninterruptibly();
+        }
+        if (queue.isEmpty()) {
+          return;
+        }
+        long deadline = System.nanoTime() + maxDelayNanos;
+        long remaining = maxDelayNanos;
+        while (queue.size() < maxBatch && !closed && flushWaiters == 0 && remaining > 0) {
+          try {
+            changed.awaitNanos(remaining);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            break;
+          }
+          remaining = deadline - System.nanoTime();
+        }
+        while (batch.size() < maxBatch && !queue.isEmpty()) {
+          batch.add(queue.poll());
+        }
+      } finally {
+        lock.unlock();
+      }
+
+      int failed = commit(batch);
+
+      lock.lock();
+      try {
+        dropped += failed;
+        for (Pending pending : batch) {
+          footprints.remove(pending.footprint());
+        }
+        committedSeq = batch.get(batch.size() - 1).seq();
+        changed.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /** @return кількість відкинутих операцій */
+  private int commit(List<Pending> batch) {
+    List<Pending> done = batch;
+    try {
+      committer.commit(batch.stream().map(Pending::write).toList());
+    } catch (SQLException | RuntimeException e) {
+      Logger.warn(
+          "Group commit of " + batch.size() + " writes failed, retrying one by one: " + e);
+      done = new ArrayList<>(batch.size());
+      for (Pending pending : batch) {
+        try {
+          committer.commit(List.of(pending.write()));
+          done.add(pending);
+        } catch (SQLException | RuntimeException single) {
+          Logger.error("Failed to " + pending.description() + ": " + single);
+        }
+      }
+      if (done.size() < batch.size()) {
+        Logger.error(
+            "Dropped "
+                + (batch.size() - done.size())
+                + " of "
+                + batch.size()
+                + " queued writes after retrying them one by one.");
+      }
+    }
+    for (Pending pending : done) {
+      if (pending.afterCommit() != null) {
+        try {
+          pending.afterCommit().run();
+        } catch (RuntimeException e) {
+          Logger.error("Post-commit callback failed: " + e.getMessage());
+        }
+      }
+    }
+    return batch.size() - done.size();
+  }
+
+  /** Комітить усе, що лишилося в черзі, і зупиняє потік записувача. */
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      closed = true;
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    if (Thread.currentThread() == worker) {
+      return;
+    }
+    try {
+      worker.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
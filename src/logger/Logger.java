@@ -10,7 +10,8 @@ public class Logger {
 
   public enum OutputType {
     CONSOLE,
-    FILE
+    FILE,
+    NONE
   }
 
   private static OutputType output = OutputType.FILE;
@@ -46,6 +47,9 @@ public class Logger {
 
   // --- Основна логіка ---
   private static void log(String level, String message, Throwable throwable) {
+    if (output == OutputType.NONE) {
+      return;
+    }
     String timestamp = LocalDateTime.now().format(formatter);
 
     // Отримуємо клас, який викликав логер
@@ -59,6 +63,7 @@ public class Logger {
         if (throwable != null) throwable.printStackTrace(System.out);
       }
       case FILE -> writeToFile(logEntry, throwable);
+      case NONE -> {}
     }
   }
 
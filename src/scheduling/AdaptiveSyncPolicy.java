@@ -0,0 +1,67 @@
+package scheduling;
+
+/**
+ * Обирає паузу між віддаленими синхронізаціями.
+ *
+ * <p>Якщо сервер кілька разів поспіль віддав те саме, інтервал подвоюється до {@code
+ * maxIntervalMillis}, так само й після збою; будь-яка зміна повертає його до мінімального. Окремо інтервал обрізається так,
+ * щоб синхронізація відбулася трохи раніше найближчого сповіщення й встигла підхопити його зміни.
+ */
+public final class AdaptiveSyncPolicy {
+  private final long minIntervalMillis;
+  private final long maxIntervalMillis;
+  private final long leadMillis;
+  private long currentIntervalMillis;
+  private long unchangedStreak;
+
+  public AdaptiveSyncPolicy(long minIntervalMillis, long maxIntervalMillis, long leadMillis) {
+    this.minIntervalMillis = minIntervalMillis;
+    this.maxIntervalMillis = Math.max(minIntervalMillis, maxIntervalMillis);
+    this.leadMillis = leadMillis;
+    this.currentIntervalMillis = minIntervalMillis;
+  }
+
+  public synchronized void onResult(boolean changed) {
+    if (changed) {
+      unchangedStreak = 0;
+      currentIntervalMillis = minIntervalMillis;
+    } else {
+      unchangedStreak++;
+      currentIntervalMillis = Math.min(maxIntervalMillis, currentIntervalMillis * 2);
+    }
+  }
+
+  /** Невдала синхронізація: інтервал подвоюється, як і після незмінної відповіді. */
+  public synchronized void onFailure() {
+    currentIntervalMillis = Math.min(maxIntervalMillis, currentIntervalMillis * 2);
+  }
+
+  /**
+   * @param lastAttemptMillis коли була остання спроба
+   * @param nextFireAtMillis найближче сповіщення в черзі годинника або {@link Long#MAX_VALUE}
+   * @return момент наступної синхронізації
+   */
+  public synchronized long nextSyncAt(long lastAttemptMillis, long nextFireAtMillis) {
+    long next = lastAttemptMillis + currentIntervalMillis;
+    if (nextFireAtMillis != Long.MAX_VALUE) {
+      long beforeFire = nextFireAtMillis - leadMillis;
+      if (beforeFire > lastAttemptMillis) {
+        next = Math.min(next, Math.max(beforeFire, lastAttemptMillis + minIntervalMillis));
+      }
+    }
+    return next;
+  }
+
+  /** Відновлює інтервал зі знімка, щоб після перезапуску не починати з мінімального. */
+  public synchronized void restore(long intervalMillis) {
+    currentIntervalMillis = Math.max(minIntervalMillis, Math.min(maxIntervalMillis, intervalMillis));
+  }
+
+  public synchronized long currentIntervalMillis() {
+    return currentIntervalMillis;
+  }
+
+  public synchronized long unchangedStreak() {
+    return unchangedStreak;
+  }
+}
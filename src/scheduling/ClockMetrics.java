@@ -0,0 +1,72 @@
+package scheduling;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Лічильники та гістограми годинника: наскільки пізно спрацьовують сповіщення, скільки триває
+ * прохід, як часто читається БД. Знімок разом зі статистикою конвеєра, синхронізації та
+ * віддаленого видалення повертає {@code Clock.getMetrics()}.
+ */
+public final class ClockMetrics {
+  private final Histogram lateness = new Histogram();
+  private final Histogram tickDuration = new Histogram();
+  private final AtomicLong ticks = new AtomicLong();
+  private final AtomicLong fired = new AtomicLong();
+  private final AtomicLong firedInCatchUp = new AtomicLong();
+  private final AtomicLong dbPageLoads = new AtomicLong();
+  private final AtomicLong dbRowsLoaded = new AtomicLong();
+  private volatile int queueSize;
+
+  /** Фактичний момент показу мінус {@code fireAt}. */
+  public void recordFired(long latenessMillis) {
+    fired.incrementAndGet();
+    lateness.record(latenessMillis);
+  }
+
+  public void recordCatchUp(int count) {
+    firedInCatchUp.addAndGet(count);
+  }
+
+  public void recordTick(long durationMillis, int queueSize) {
+    ticks.incrementAndGet();
+    tickDuration.record(durationMillis);
+    this.queueSize = queueSize;
+  }
+
+  public void recordDbPage(int rows) {
+    dbPageLoads.incrementAndGet();
+    dbRowsLoaded.addAndGet(rows);
+  }
+
+  public Snapshot snapshot(
+      List<PipelineStage.StageStats> pipeline,
+      RemoteSyncer.SyncStats sync,
+      RemoteDeleteBatcher.Stats remoteDeletes) {
+    return new Snapshot(
+        lateness.snapshot(),
+        tickDuration.snapshot(),
+        ticks.get(),
+        fired.get(),
+        firedInCatchUp.get(),
+        queueSize,
+        dbPageLoads.get(),
+        dbRowsLoaded.get(),
+        pipeline,
+        sync,
+        remoteDeletes);
+  }
+
+  public record Snapshot(
+      Histogram.Snapshot latenessMillis,
+      Histogram.Snapshot tickMillis,
+      long ticks,
+      long fired,
+      long firedInCatchUp,
+      int queueSize,
+      long dbPageLoads,
+      long dbRowsLoaded,
+      List<PipelineStage.StageStats> pipeline,
+      RemoteSyncer.SyncStats sync,
+      RemoteDeleteBatcher.Stats remoteDeletes) {}
+}
@@ -0,0 +1,129 @@
+package scheduling;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import logger.Logger;
+
+/**
+ * Модель потоків для годинника, конвеєра та фонових задач UI.
+ *
+ * <p>{@link #VIRTUAL} дає кожній блокуючій задачі власний віртуальний потік (JDK 21+). API
+ * віртуальних потоків викликається через рефлексію, тож код збирається й на JDK 17; там режим
+ * відкочується до {@link #PLATFORM} з попередженням у журналі.
+ */
+public enum ExecutionMode {
+  PLATFORM,
+  VIRTUAL;
+
+  private static final Class<?> BUILDER = builderClass();
+  private static final Method OF_VIRTUAL = lookup(Thread.class, "ofVirtual");
+  private static final Method THREAD_PER_TASK =
+      lookup(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+  private static final Method NAME = lookup(BUILDER, "name", String.class);
+  private static final Method NAME_COUNTER = lookup(BUILDER, "name", String.class, long.class);
+  private static final Method FACTORY = lookup(BUILDER, "factory");
+  private static final Method UNSTARTED = lookup(BUILDER, "unstarted", Runnable.class);
+  private static final AtomicBoolean fallbackReported = new AtomicBoolean();
+
+  public static ExecutionMode parse(String name) {
+    if (name == null || name.isBlank()) {
+      return PLATFORM;
+    }
+    return switch (name.trim().toLowerCase()) {
+      case "platform" -> PLATFORM;
+      case "virtual" -> VIRTUAL;
+      default -> throw new IllegalArgumentException("Unknown execution mode: " + name);
+    };
+  }
+
+  public static boolean virtualThreadsAvailable() {
+    return OF_VIRTUAL != null
+        && THREAD_PER_TASK != null
+        && NAME != null
+        && NAME_COUNTER != null
+        && FACTORY != null
+        && UNSTARTED != null;
+  }
+
+  /** Режим, який реально буде використано на цій JVM. */
+  public ExecutionMode effective() {
+    if (this == VIRTUAL && !virtualThreadsAvailable()) {
+      if (fallbackReported.compareAndSet(false, true)) {
+        Logger.warn(
+            "Virtual threads need JDK 21+, running on "
+                + Runtime.version()
+                + "; falling back to platform threads.");
+      }
+      return PLATFORM;
+    }
+    return this;
+  }
+
+  /**
+   * Віртуальний режим: потік на задачу без обмеження пулу. Платформний: {@code platformThreads}
+   * daemon-потоків з необмеженою чергою.
+   */
+  ExecutorService newExecutor(String name, int platformThreads) {
+    if (effective() == VIRTUAL) {
+      try {
+        return (ExecutorService) THREAD_PER_TASK.invoke(null, threadFactory(name));
+      } catch (ReflectiveOperationException e) {
+        Logger.warn("Cannot create virtual thread executor: " + e.getMessage());
+      }
+    }
+    return Executors.newFixedThreadPool(Math.max(1, platformThreads), platformFactory(name));
+  }
+
+  /** Створює (не запускає) потік; платформні потоки — daemon, як і віртуальні. */
+  public Thread newThread(String name, Runnable task) {
+    if (effective() == VIRTUAL) {
+      try {
+        Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name);
+        return (Thread) UNSTARTED.invoke(builder, task);
+      } catch (ReflectiveOperationException e) {
+        Logger.warn("Cannot create virtual thread " + name + ": " + e.getMessage());
+      }
+    }
+    Thread thread = new Thread(task, name);
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private static ThreadFactory threadFactory(String name) throws ReflectiveOperationException {
+    Object builder = NAME_COUNTER.invoke(OF_VIRTUAL.invoke(null), name + "-", 1L);
+    return (ThreadFactory) FACTORY.invoke(builder);
+  }
+
+  private static ThreadFactory platformFactory(String name) {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /** Методи шукаються на публічному інтерфейсі {@code Thread.Builder}, а не на його реалізації. */
+  private static Class<?> builderClass() {
+    try {
+      return Class.forName("java.lang.Thread$Builder");
+    } catch (ClassNotFoundException e) {
+      return null;
+    }
+  }
+
+  private static Method lookup(Class<?> owner, String name, Class<?>... parameters) {
+    if (owner == null) {
+      return null;
+    }
+    try {
+      return owner.getMethod(name, parameters);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package scheduling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import structures.NotificationInfo;
+
+/**
+ * Конвеєр обробки сповіщення, що спрацювало: показ, локальне видалення, віддалене підтвердження.
+ *
+ * <p>Потік годинника лише вирішує, що вже настав час, і кладе запис у перший етап; мережеві та
+ * дискові затримки залишаються всередині своїх етапів. Етап збереження зливає все, що накопичилося
+ * за час попереднього запису, в один виклик {@code persist}, тож сплеск спрацювань дає кілька
+ * транзакцій замість сотень.
+ */
+public final class FirePipeline {
+  private static final int FIRE_THREADS = 1;
+  private static final int PERSISTENCE_THREADS = 1;
+  private static final int REMOTE_THREADS = 2;
+  private static final int STAGE_CAPACITY = 1024;
+  private static final long SHUTDOWN_TIMEOUT_MILLIS = 5_000;
+
+  private final PipelineStage fireStage;
+  private final PipelineStage persistenceStage;
+  private final PipelineStage remoteStage;
+  private final Consumer<NotificationInfo> fire;
+  private final Consumer<List<NotificationInfo>> fireSummary;
+  private final Consumer<List<NotificationInfo>> persist;
+  private final Consumer<NotificationInfo> remoteAck;
+  private final Queue<NotificationInfo> pendingPersist = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean persistScheduled = new AtomicBoolean();
+
+  public FirePipeline(
+      Consumer<NotificationInfo> fire,
+      Consumer<List<NotificationInfo>> fireSummary,
+      Consumer<List<NotificationInfo>> persist,
+      Consumer<NotificationInfo> remoteAck) {
+    this(fire, fireSummary, persist, remoteAck, ExecutionMode.PLATFORM);
+  }
+
+  /**
+   * @param mode модель потоків етапу віддаленого підтвердження; показ і збереження лишаються
+   *     однопотоковими, бо їм важливий порядок
+   */
+  public FirePipeline(
+      Consumer<NotificationInfo> fire,
+      Consumer<List<NotificationInfo>> fireSummary,
+      Consumer<List<NotificationInfo>> persist,
+      Consumer<NotificationInfo> remoteAck,
+      ExecutionMode mode) {
+    this(
+        fire,
+        fireSummary,
+        persist,
+        remoteAck,
+        mode,
+        FIRE_THREADS,
+        PERSISTENCE_THREADS,
+        REMOTE_THREADS);
+  }
+
+  private FirePipeline(
+      Consumer<NotificationInfo> fire,
+      Consumer<List<NotificationInfo>> fireSummary,
+      Consumer<List<NotificationInfo>> persist,
+      Consumer<NotificationInfo> remoteAck,
+      ExecutionMode mode,
+      int fireThreads,
+      int persistenceThreads,
+      int remoteThreads) {
+    this.fireStage = new PipelineStage("fire", fireThreads, STAGE_CAPACITY);
+    this.persistenceStage = new PipelineStage("persistence", persistenceThreads, STAGE_CAPACITY);
+    this.remoteStage = new PipelineStage("remote-ack", mode, remoteThreads, STAGE_CAPACITY);
+    this.fire = fire;
+    this.fireSummary = fireSummary;
+    this.persist = persist;
+    this.remoteAck = remoteAck;
+  }
+
+  /** Конвеєр без потоків: усі етапи виконуються в потоці виклику, тож прогін детермінований. */
+  public static FirePipeline inline(
+      Consumer<NotificationInfo> fire,
+      Consumer<List<NotificationInfo>> fireSummary,
+      Consumer<List<NotificationInfo>> persist,
+      Consumer<NotificationInfo> remoteAck) {
+    return new FirePipeline(fire, fireSummary, persist, remoteAck, ExecutionMode.PLATFORM, 0, 0, 0);
+  }
+
+  public void submit(NotificationInfo info) {
+    fireStage.submit(
+        () -> {
+          fire.accept(info);
+          persistLater(info);
+        });
+  }
+
+  /** Показує кілька сповіщень одним зведенням, а зберігає та підтверджує їх як звичайні. */
+  public void submitSummary(List<NotificationInfo> infos) {
+    if (infos.isEmpty()) {
+      return;
+    }
+    List<NotificationInfo> batch = List.copyOf(infos);
+    fireStage.submit(
+        () -> {
+          fireSummary.accept(batch);
+          batch.forEach(this::persistLater);
+        });
+  }
+
+  private void persistLater(NotificationInfo info) {
+    pendingPersist.add(info);
+    if (persistScheduled.compareAndSet(false, true)) {
+      persistenceStage.submit(this::drainPersist);
+    }
+  }
+
+  private void drainPersist() {
+    persistScheduled.set(false);
+    List<NotificationInfo> batch = new ArrayList<>();
+    NotificationInfo next;
+    while ((next = pendingPersist.poll()) != null) {
+      batch.add(next);
+    }
+    if (batch.isEmpty()) {
+      return;
+    }
+    persist.accept(batch);
+    for (NotificationInfo info : batch) {
+      if (info.getWebId() > 0) {
+        remoteStage.submit(() -> remoteAck.accept(info));
+      }
+    }
+  }
+
+  public List<PipelineStage.StageStats> stats() {
+    return List.of(fireStage.stats(), persistenceStage.stats(), remoteStage.stats());
+  }
+
+  /** Зупиняє етапи по черзі, даючи кожному доробити вже прийняті записи. */
+  public void close() {
+    fireStage.shutdown();
+    fireStage.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS);
+    persistenceStage.shutdown();
+    persistenceStage.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS);
+    remoteStage.shutdown();
+    remoteStage.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS);
+  }
+}
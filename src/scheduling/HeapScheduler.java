@@ -0,0 +1,77 @@
+package scheduling;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import structures.NotificationInfo;
+
+/** Класична двійкова купа: O(log n) вставка, але O(n) скасування та заміна. */
+public final class HeapScheduler implements NotificationScheduler {
+  private final PriorityQueue<NotificationInfo> queue =
+      new PriorityQueue<>(Comparator.comparingLong(NotificationInfo::getFireAtMillis));
+  private final Map<Integer, NotificationInfo> byId = new HashMap<>();
+
+  @Override
+  public void schedule(NotificationInfo info) {
+    if (byId.put(info.getId(), info) != null) {
+      queue.removeIf(existing -> existing.getId() == info.getId());
+    }
+    queue.offer(info);
+  }
+
+  @Override
+  public boolean reschedule(int id, long fireAt) {
+    NotificationInfo info = byId.get(id);
+    if (info == null) {
+      return false;
+    }
+    queue.removeIf(existing -> existing.getId() == id);
+    info.setFireAt(fireAt);
+    queue.offer(info);
+    return true;
+  }
+
+  @Override
+  public boolean cancel(int id) {
+    if (byId.remove(id) == null) {
+      return false;
+    }
+    queue.removeIf(existing -> existing.getId() == id);
+    return true;
+  }
+
+  @Override
+  public boolean contains(int id) {
+    return byId.containsKey(id);
+  }
+
+  @Override
+  public long nextFireAtMillis() {
+    NotificationInfo next = queue.peek();
+    return next == null ? Long.MAX_VALUE : next.getFireAtMillis();
+  }
+
+  @Override
+  public List<NotificationInfo> pollDue(long nowMillis) {
+    List<NotificationInfo> due = new ArrayList<>();
+    while (!queue.isEmpty() && queue.peek().getFireAtMillis() <= nowMillis) {
+      NotificationInfo next = queue.poll();
+      byId.remove(next.getId());
+      due.add(next);
+    }
+    return due;
+  }
+
+  @Override
+  public List<NotificationInfo> entries() {
+    return new ArrayList<>(byId.values());
+  }
+
+  @Override
+  public int size() {
+    return byId.size();
+  }
+}
@@ -0,0 +1,73 @@
+package scheduling;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Потокобезпечна гістограма мілісекундних значень зі степенево-двійковими кошиками.
+ *
+ * <p>Кошик {@code i} містить значення з {@code [2^(i-1), 2^i)}, нульовий — усе, що менше за 1 мс
+ * (зокрема від'ємні значення). Перцентилі оцінюються верхньою межею кошика.
+ */
+public final class Histogram {
+  private static final int BUCKETS = 40;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+  private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+  public void record(long valueMillis) {
+    buckets.incrementAndGet(bucketOf(valueMillis));
+    count.incrementAndGet();
+    sum.addAndGet(valueMillis);
+    max.accumulateAndGet(valueMillis, Math::max);
+    min.accumulateAndGet(valueMillis, Math::min);
+  }
+
+  public Snapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = buckets.get(i);
+      total += copy[i];
+    }
+    if (total == 0) {
+      return new Snapshot(0, 0, 0, 0, 0, 0, 0, 0);
+    }
+    long maxValue = max.get();
+    return new Snapshot(
+        total,
+        min.get(),
+        maxValue,
+        sum.get() / Math.max(1, count.get()),
+        Math.min(maxValue, percentile(copy, total, 0.50)),
+        Math.min(maxValue, percentile(copy, total, 0.90)),
+        Math.min(maxValue, percentile(copy, total, 0.99)),
+        Math.min(maxValue, percentile(copy, total, 0.999)));
+  }
+
+  private static int bucketOf(long valueMillis) {
+    if (valueMillis < 1) {
+      return 0;
+    }
+    return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(valueMillis));
+  }
+
+  private static long percentile(long[] counts, long total, double quantile) {
+    long rank = (long) Math.ceil(quantile * total);
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return i == 0 ? 0 : (1L << i) - 1;
+      }
+    }
+    return (1L << (counts.length - 1)) - 1;
+  }
+
+  /** Значення в мілісекундах; перцентилі — верхні межі кошиків. */
+  public record Snapshot(
+      long count, long min, long max, long mean, long p50, long p90, long p99, long p999) {}
+}
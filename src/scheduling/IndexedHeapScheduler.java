@@ -0,0 +1,165 @@
+package scheduling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import structures.NotificationInfo;
+
+/**
+ * Двійкова купа з індексом позицій за локальним id.
+ *
+ * <p>Кожен запис пам'ятає свій індекс у масиві, тому заміна, {@link #reschedule} і {@link #cancel}
+ * виконуються за O(log n) без лінійного пошуку.
+ */
+public final class IndexedHeapScheduler implements NotificationScheduler {
+  private Entry[] heap = new Entry[16];
+  private int size;
+  private final Map<Integer, Entry> byId = new HashMap<>();
+
+  @Override
+  public void schedule(NotificationInfo info) {
+    Entry existing = byId.get(info.getId());
+    if (existing != null) {
+      existing.info = info;
+      update(existing, info.getFireAtMillis());
+      return;
+    }
+    Entry entry = new Entry(info, info.getFireAtMillis());
+    byId.put(info.getId(), entry);
+    if (size == heap.length) {
+      heap = Arrays.copyOf(heap, size * 2);
+    }
+    entry.position = size;
+    heap[size++] = entry;
+    siftUp(entry.position);
+  }
+
+  @Override
+  public boolean reschedule(int id, long fireAt) {
+    Entry entry = byId.get(id);
+    if (entry == null) {
+      return false;
+    }
+    entry.info.setFireAt(fireAt);
+    update(entry, entry.info.getFireAtMillis());
+    return true;
+  }
+
+  @Override
+  public boolean cancel(int id) {
+    Entry entry = byId.remove(id);
+    if (entry == null) {
+      return false;
+    }
+    removeAt(entry.position);
+    return true;
+  }
+
+  @Override
+  public boolean contains(int id) {
+    return byId.containsKey(id);
+  }
+
+  @Override
+  public long nextFireAtMillis() {
+    return size == 0 ? Long.MAX_VALUE : heap[0].key;
+  }
+
+  @Override
+  public List<NotificationInfo> pollDue(long nowMillis) {
+    List<NotificationInfo> due = new ArrayList<>();
+    while (size > 0 && heap[0].key <= nowMillis) {
+      Entry head = heap[0];
+      byId.remove(head.info.getId());
+      removeAt(0);
+      due.add(head.info);
+    }
+    return due;
+  }
+
+  @Override
+  public List<NotificationInfo> entries() {
+    List<NotificationInfo> entries = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      entries.add(heap[i].info);
+    }
+    return entries;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  private void update(Entry entry, long key) {
+    long previous = entry.key;
+    entry.key = key;
+    if (key < previous) {
+      siftUp(entry.position);
+    } else if (key > previous) {
+      siftDown(entry.position);
+    }
+  }
+
+  private void removeAt(int position) {
+    Entry last = heap[--size];
+    heap[size] = null;
+    if (position == size) {
+      return;
+    }
+    heap[position] = last;
+    last.position = position;
+    siftDown(position);
+    if (last.position == position) {
+      siftUp(position);
+    }
+  }
+
+  private void siftUp(int position) {
+    Entry entry = heap[position];
+    while (position > 0) {
+      int parent = (position - 1) >>> 1;
+      if (heap[parent].key <= entry.key) {
+        break;
+      }
+      heap[position] = heap[parent];
+      heap[position].position = position;
+      position = parent;
+    }
+    heap[position] = entry;
+    entry.position = position;
+  }
+
+  private void siftDown(int position) {
+    Entry entry = heap[position];
+    int half = size >>> 1;
+    while (position < half) {
+      int child = 2 * position + 1;
+      int right = child + 1;
+      if (right < size && heap[right].key < heap[child].key) {
+        child = right;
+      }
+      if (entry.key <= heap[child].key) {
+        break;
+      }
+      heap[position] = heap[child];
+      heap[position].position = position;
+      position = child;
+    }
+    heap[position] = entry;
+    entry.position = position;
+  }
+
+  private static final class Entry {
+    private NotificationInfo info;
+    private long key;
+    private int position;
+
+    Entry(NotificationInfo info, long key) {
+      this.info = info;
+      this.key = key;
+    }
+  }
+}
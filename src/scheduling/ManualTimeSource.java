@@ -0,0 +1,25 @@
+package scheduling;
+
+/** Віртуальний час, який рухає лише той, хто ним керує; назад не йде. */
+public final class ManualTimeSource implements TimeSource {
+  private volatile long nowMillis;
+
+  public ManualTimeSource(long startMillis) {
+    this.nowMillis = startMillis;
+  }
+
+  @Override
+  public long currentTimeMillis() {
+    return nowMillis;
+  }
+
+  public synchronized void advanceTo(long millis) {
+    if (millis > nowMillis) {
+      nowMillis = millis;
+    }
+  }
+
+  public void advanceBy(long millis) {
+    advanceTo(nowMillis + millis);
+  }
+}
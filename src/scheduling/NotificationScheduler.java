@@ -0,0 +1,49 @@
+package scheduling;
+
+import java.util.List;
+import structures.NotificationInfo;
+
+/** Черга запланованих сповіщень, з якої {@code Clock} вибирає ті, що вже мають спрацювати. */
+public interface NotificationScheduler {
+
+  /** Додає сповіщення або замінює вже заплановане з тим самим локальним id. */
+  void schedule(NotificationInfo info);
+
+  /** Переносить заплановане сповіщення на новий {@code fireAt} (у тих самих одиницях, що й поле). */
+  boolean reschedule(int id, long fireAt);
+
+  boolean cancel(int id);
+
+  boolean contains(int id);
+
+  /**
+   * Момент (epoch millis), раніше якого жодне сповіщення не стане готовим.
+   *
+   * @return оцінка, що ніколи не пізніша за реальний дедлайн, або {@link Long#MAX_VALUE}
+   */
+  long nextFireAtMillis();
+
+  /** Вилучає всі сповіщення з {@code fireAt <= nowMillis} у порядку спрацювання. */
+  List<NotificationInfo> pollDue(long nowMillis);
+
+  int size();
+
+  /** Усі заплановані сповіщення в довільному порядку (для знімків стану). */
+  List<NotificationInfo> entries();
+
+  default boolean isEmpty() {
+    return size() == 0;
+  }
+
+  static NotificationScheduler create(String name) {
+    if (name == null || name.isBlank()) {
+      return new IndexedHeapScheduler();
+    }
+    return switch (name.trim().toLowerCase()) {
+      case "indexed", "indexed-heap" -> new IndexedHeapScheduler();
+      case "heap" -> new HeapScheduler();
+      case "wheel", "timing-wheel" -> new TimingWheelScheduler();
+      default -> throw new IllegalArgumentException("Unknown scheduler backend: " + name);
+    };
+  }
+}
@@ -0,0 +1,194 @@
+package scheduling;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import logger.Logger;
+
+/**
+ * Один етап конвеєра спрацювання: власні потоки та обмежена черга.
+ *
+ * <p>Коли черга заповнена, {@link #submit} блокує відправника, тож повільний етап гальмує лише тих,
+ * хто в нього пише, а не весь застосунок. У режимі {@link ExecutionMode#VIRTUAL} кожна задача
+ * отримує власний потік, а {@code capacity} обмежує кількість одночасних задач. Етап без потоків
+ * ({@code threads == 0}) виконує задачі одразу в потоці відправника — для детермінованої симуляції.
+ */
+public final class PipelineStage {
+  private final String name;
+  private final int capacity;
+  private final ThreadPoolExecutor executor;
+  private final TaskScope scope;
+  private final Semaphore permits;
+  private final AtomicLong submitted = new AtomicLong();
+  private final AtomicLong completed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong busyNanos = new AtomicLong();
+
+  public PipelineStage(String name, int threads, int capacity) {
+    this(name, ExecutionMode.PLATFORM, threads, capacity);
+  }
+
+  public PipelineStage(String name, ExecutionMode mode, int threads, int capacity) {
+    this.name = name;
+    this.capacity = capacity;
+    if (threads <= 0) {
+      this.executor = null;
+      this.scope = null;
+      this.permits = null;
+      return;
+    }
+    if (mode.effective() == ExecutionMode.VIRTUAL) {
+      this.executor = null;
+      this.scope = new TaskScope(name, mode, threads, 0);
+      this.permits = new Semaphore(capacity);
+      return;
+    }
+    this.scope = null;
+    this.permits = null;
+    AtomicInteger counter = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(capacity),
+            runnable -> {
+              Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            },
+            (runnable, pool) -> {
+              if (pool.isShutdown()) {
+                throw new RejectedExecutionException("Stage " + name + " is shut down");
+              }
+              try {
+                pool.getQueue().put(runnable);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while queueing to " + name, e);
+              }
+            });
+  }
+
+  public void submit(Runnable task) {
+    submitted.incrementAndGet();
+    Runnable measured =
+        () -> {
+          long start = System.nanoTime();
+          try {
+            task.run();
+            completed.incrementAndGet();
+          } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            Logger.error("Stage " + name + " task failed: " + e.getMessage(), e);
+          } finally {
+            busyNanos.addAndGet(System.nanoTime() - start);
+          }
+        };
+    try {
+      if (scope != null) {
+        forkWithPermit(measured);
+      } else if (executor == null) {
+        measured.run();
+      } else {
+        executor.execute(measured);
+      }
+    } catch (RejectedExecutionException e) {
+      failed.incrementAndGet();
+      Logger.warn("Stage " + name + " rejected a task: " + e.getMessage());
+    }
+  }
+
+  private void forkWithPermit(Runnable measured) {
+    if (scope.isClosed()) {
+      throw new RejectedExecutionException("Stage " + name + " is shut down");
+    }
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RejectedExecutionException("Interrupted while queueing to " + name, e);
+    }
+    try {
+      scope.fork(
+          () -> {
+            try {
+              measured.run();
+            } finally {
+              permits.release();
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  public StageStats stats() {
+    return new StageStats(
+        name,
+        scope != null
+            ? capacity - permits.availablePermits()
+            : executor == null ? 0 : executor.getQueue().size(),
+        capacity,
+        submitted.get(),
+        completed.get(),
+        failed.get(),
+        busyNanos.get() / 1_000_000);
+  }
+
+  void shutdown() {
+    if (scope != null) {
+      scope.shutdown();
+    } else if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+  /** Чекає, поки етап доробить чергу; переривання не обриває очікування передчасно. */
+  boolean awaitTermination(long timeoutMillis) {
+    if (scope != null) {
+      return scope.awaitTermination(timeoutMillis);
+    }
+    if (executor == null) {
+      return true;
+    }
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    boolean interrupted = false;
+    try {
+      while (true) {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          executor.shutdownNow();
+          Logger.warn("Stage " + name + " did not drain in time; dropped queued tasks.");
+          return false;
+        }
+        try {
+          if (executor.awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
+            return true;
+          }
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  public record StageStats(
+      String name,
+      int queueDepth,
+      int capacity,
+      long submitted,
+      long completed,
+      long failed,
+      long busyMillis) {}
+}
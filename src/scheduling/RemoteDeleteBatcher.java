@@ -0,0 +1,284 @@
+package scheduling;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import logger.Logger;
+
+/**
+ * Збирає webId спрацьованих сповіщень і видаляє їх на сервері одним запитом.
+ *
+ * <p>Пакет відправляється, коли набралося {@code maxBatchSize} записів або минуло {@code
+ * flushWindowMillis} від першого. Невдалі id повертаються в наступний пакет; після невдачі розмір
+ * пакета зменшується вдвічі, щоб один «отруйний» id не блокував решту, повтори йдуть з
+ * експоненційною затримкою, а після {@code maxAttempts} спроб id відкидається й передається в
+ * {@code onGiveUp} — рядок лишився на сервері, і власник вирішує, чи повторити видалення пізніше.
+ *
+ * <p>Звичайний батчер відправляє пакети з власного потоку за настінним часом. {@link #onTicks}
+ * натомість рахує вікно й затримки за {@link TimeSource} і відправляє пакети лише з {@link
+ * #flushDue}: так симуляція у віртуальному часі отримує відтворювану кількість запитів.
+ */
+public final class RemoteDeleteBatcher {
+  private static final long MAX_RETRY_DELAY_MILLIS = 60_000;
+
+  private final Predicate<List<Integer>> deleter;
+  private final int maxBatchSize;
+  private final long flushWindowMillis;
+  private final int maxAttempts;
+  private final Consumer<List<Integer>> onGiveUp;
+  /** {@code null} у режимі {@link #onTicks}. */
+  private final ScheduledExecutorService executor;
+  private final TimeSource time;
+
+  private final Map<Integer, Integer> pending = new LinkedHashMap<>();
+  private ScheduledFuture<?> scheduledFlush;
+  private long flushAtMillis = Long.MAX_VALUE;
+  private boolean closed;
+  private int currentBatchSize;
+  private int consecutiveFailures;
+  private long batchesSent;
+  private long idsDeleted;
+  private long idsRetried;
+  private long idsDropped;
+
+  /** @param onGiveUp отримує id, від яких батчер відмовився, поза його замком */
+  public RemoteDeleteBatcher(
+      Predicate<List<Integer>> deleter,
+      int maxBatchSize,
+      long flushWindowMillis,
+      int maxAttempts,
+      Consumer<List<Integer>> onGiveUp) {
+    this(
+        deleter,
+        maxBatchSize,
+        flushWindowMillis,
+        maxAttempts,
+        onGiveUp,
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "remote-delete-batcher");
+              thread.setDaemon(true);
+              return thread;
+            }),
+        TimeSource.SYSTEM);
+  }
+
+  private RemoteDeleteBatcher(
+      Predicate<List<Integer>> deleter,
+      int maxBatchSize,
+      long flushWindowMillis,
+      int maxAttempts,
+      Consumer<List<Integer>> onGiveUp,
+      ScheduledExecutorService executor,
+      TimeSource time) {
+    this.deleter = deleter;
+    this.maxBatchSize = maxBatchSize;
+    this.flushWindowMillis = flushWindowMillis;
+    this.maxAttempts = maxAttempts;
+    this.onGiveUp = onGiveUp;
+    this.currentBatchSize = maxBatchSize;
+    this.executor = executor;
+    this.time = time;
+  }
+
+  /** Батчер без власного потоку: пакети відправляє {@link #flushDue} у потоці виклику. */
+  public static RemoteDeleteBatcher onTicks(
+      Predicate<List<Integer>> deleter,
+      int maxBatchSize,
+      long flushWindowMillis,
+      int maxAttempts,
+      Consumer<List<Integer>> onGiveUp,
+      TimeSource time) {
+    return new RemoteDeleteBatcher(
+        deleter, maxBatchSize, flushWindowMillis, maxAttempts, onGiveUp, null, time);
+  }
+
+  public synchronized void add(int webId) {
+    if (webId <= 0 || closed) {
+      return;
+    }
+    pending.putIfAbsent(webId, 0);
+    if (pending.size() >= currentBatchSize) {
+      scheduleFlush(0);
+    } else {
+      scheduleFlush(flushWindowMillis);
+    }
+  }
+
+  public synchronized Stats stats() {
+    return new Stats(pending.size(), batchesSent, idsDeleted, idsRetried, idsDropped);
+  }
+
+  /**
+   * Відправляє пакети, чий час за {@link TimeSource} настав; лише для {@link #onTicks}.
+   * Звичайний батчер ігнорує виклик.
+   */
+  public void flushDue(long nowMillis) {
+    while (takeDue(nowMillis)) {
+      flush();
+    }
+  }
+
+  /** Час наступної відправки для {@link #onTicks}; {@link Long#MAX_VALUE}, якщо чекати нічого. */
+  public synchronized long nextFlushAtMillis() {
+    return flushAtMillis;
+  }
+
+  private synchronized boolean takeDue(long nowMillis) {
+    if (flushAtMillis > nowMillis) {
+      return false;
+    }
+    flushAtMillis = Long.MAX_VALUE;
+    return true;
+  }
+
+  /** Відправляє все, що лишилося в черзі, і зупиняє фоновий потік. */
+  public void close() {
+    synchronized (this) {
+      closed = true;
+      flushAtMillis = Long.MAX_VALUE;
+      if (scheduledFlush != null) {
+        scheduledFlush.cancel(false);
+        scheduledFlush = null;
+      }
+    }
+    if (executor != null) {
+      executor.shutdown();
+      try {
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    int rounds = 0;
+    while (hasPending() && rounds++ < maxAttempts) {
+      flush();
+    }
+    List<Integer> dropped;
+    synchronized (this) {
+      dropped = new ArrayList<>(pending.keySet());
+      if (!dropped.isEmpty()) {
+        Logger.warn("Dropping " + dropped.size() + " unsent remote deletions: " + dropped);
+        idsDropped += dropped.size();
+        pending.clear();
+      }
+    }
+    givenUp(dropped);
+  }
+
+  private synchronized boolean hasPending() {
+    return !pending.isEmpty();
+  }
+
+  private void scheduleFlush(long delayMillis) {
+    if (closed) {
+      return;
+    }
+    if (executor == null) {
+      long now = time.currentTimeMillis();
+      if (flushAtMillis != Long.MAX_VALUE && (delayMillis > 0 || flushAtMillis <= now)) {
+        return;
+      }
+      flushAtMillis = now + delayMillis;
+      return;
+    }
+    if (scheduledFlush != null && !scheduledFlush.isDone()) {
+      if (delayMillis > 0 || scheduledFlush.getDelay(TimeUnit.MILLISECONDS) <= 0) {
+        return;
+      }
+      scheduledFlush.cancel(false);
+    }
+    scheduledFlush = executor.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void flush() {
+    List<Integer> batch = takeBatch();
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    boolean deleted;
+    try {
+      deleted = deleter.test(batch);
+    } catch (RuntimeException e) {
+      Logger.warn("Remote delete batch failed: " + e.getMessage());
+      deleted = false;
+    }
+
+    List<Integer> givenUp = List.of();
+    synchronized (this) {
+      batchesSent++;
+      if (deleted) {
+        batch.forEach(pending::remove);
+        idsDeleted += batch.size();
+        currentBatchSize = maxBatchSize;
+        consecutiveFailures = 0;
+        Logger.info("Deleted remote notifications in batch: " + batch);
+      } else {
+        givenUp = requeue(batch);
+        currentBatchSize = Math.max(1, batch.size() / 2);
+        consecutiveFailures++;
+      }
+      if (!pending.isEmpty() && !closed) {
+        scheduledFlush = null;
+        flushAtMillis = Long.MAX_VALUE;
+        if (consecutiveFailures > 0) {
+          scheduleFlush(
+              Math.min(MAX_RETRY_DELAY_MILLIS, flushWindowMillis << Math.min(consecutiveFailures, 16)));
+        } else {
+          scheduleFlush(pending.size() >= currentBatchSize ? 0 : flushWindowMillis);
+        }
+      }
+    }
+    givenUp(givenUp);
+  }
+
+  private void givenUp(List<Integer> webIds) {
+    if (webIds.isEmpty()) {
+      return;
+    }
+    try {
+      onGiveUp.accept(webIds);
+    } catch (RuntimeException e) {
+      Logger.error("Remote delete give-up callback failed: " + e);
+    }
+  }
+
+  private synchronized List<Integer> takeBatch() {
+    List<Integer> batch = new ArrayList<>(Math.min(currentBatchSize, pending.size()));
+    Iterator<Integer> ids = pending.keySet().iterator();
+    while (ids.hasNext() && batch.size() < currentBatchSize) {
+      batch.add(ids.next());
+    }
+    return batch;
+  }
+
+  /** @return id, від яких батчер відмовився */
+  private List<Integer> requeue(List<Integer> batch) {
+    List<Integer> givenUp = new ArrayList<>();
+    for (Integer webId : batch) {
+      int attempts = pending.remove(webId) + 1;
+      if (attempts >= maxAttempts) {
+        idsDropped++;
+        givenUp.add(webId);
+        Logger.warn(
+            "Giving up on remote deletion of webId=" + webId + " after " + attempts + " attempts");
+      } else {
+        idsRetried++;
+        pending.put(webId, attempts);
+      }
+    }
+    return givenUp;
+  }
+
+  public record Stats(
+      int pending, long batchesSent, long idsDeleted, long idsRetried, long idsDropped) {}
+}
@@ -0,0 +1,302 @@
+package scheduling;
+
+import db.NotificationStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import logger.Logger;
+import structures.NotificationInfo;
+
+/**
+ * Окремий потік віддаленої синхронізації.
+ *
+ * <p>Забирає сповіщення з сервера, зберігає їх у SQLite і передає збережені рядки годиннику через
+ * {@code handoff}, тож повільна чи недоступна мережа ніколи не затримує спрацювання. Паузу між
+ * запитами обирає {@link AdaptiveSyncPolicy} за відбитком відповіді та часом найближчого
+ * сповіщення.
+ */
+public final class RemoteSyncer {
+  private final Supplier<List<NotificationInfo>> fetcher;
+  private final NotificationStore db;
+  private final Consumer<List<NotificationInfo>> handoff;
+  private final RemoteTombstones tombstones;
+  private final AdaptiveSyncPolicy policy;
+  private final LongSupplier nextFireAtMillis;
+  private final long minIntervalMillis;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition wakeCondition = lock.newCondition();
+  private Thread thread;
+  private volatile boolean running;
+  private boolean syncRequested;
+
+  private volatile long lastAttemptMillis;
+  private volatile long lastSuccessMillis;
+  private volatile long lastDurationMillis;
+  private volatile int lastFetchedCount;
+  private volatile long successes;
+  private volatile long failures;
+  private volatile long unchangedFetches;
+  private final Histogram durations = new Histogram();
+  private volatile long lastFingerprint;
+  private volatile boolean hasFingerprint;
+  private volatile boolean restored;
+
+  /**
+   * @param fetcher повертає віддалені сповіщення або {@code null}, якщо запит не вдався
+   * @param handoff отримує збережені рядки з локальними id
+   * @param tombstones webId, що вже спрацювали: їх не вставляємо в SQLite знову
+   * @param nextFireAtMillis найближче сповіщення годинника; читається з потоку синхронізації
+   * @param minIntervalMillis мінімальна пауза навіть для явних {@link #requestSync()}
+   */
+  public RemoteSyncer(
+      Supplier<List<NotificationInfo>> fetcher,
+      NotificationStore db,
+      Consumer<List<NotificationInfo>> handoff,
+      RemoteTombstones tombstones,
+      AdaptiveSyncPolicy policy,
+      LongSupplier nextFireAtMillis,
+      long minIntervalMillis) {
+    this.fetcher = fetcher;
+    this.db = db;
+    this.handoff = handoff;
+    this.tombstones = tombstones;
+    this.policy = policy;
+    this.nextFireAtMillis = nextFireAtMillis;
+    this.minIntervalMillis = minIntervalMillis;
+  }
+
+  /**
+   * Підхоплює маркер останньої синхронізації зі знімка: перший запит відкладається за політикою, а
+   * незмінна відповідь не перезаписує SQLite. Викликати до {@link #start()}.
+   */
+  public void restore(long lastSyncMillis, long fingerprint, long intervalMillis) {
+    if (lastSyncMillis <= 0) {
+      return;
+    }
+    lastAttemptMillis = lastSyncMillis;
+    lastSuccessMillis = lastSyncMillis;
+    lastFingerprint = fingerprint;
+    hasFingerprint = true;
+    policy.restore(intervalMillis);
+    restored = true;
+  }
+
+  /** Відбиток останньої вдалої відповіді сервера; 0, якщо її ще не було. */
+  public long lastFingerprint() {
+    return hasFingerprint ? lastFingerprint : 0;
+  }
+
+  public synchronized void start() {
+    if (thread != null) {
+      return;
+    }
+    running = true;
+    thread = new Thread(this::loop, "remote-sync");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  public void stop() {
+    Thread current;
+    synchronized (this) {
+      running = false;
+      current = thread;
+      thread = null;
+    }
+    if (current == null) {
+      return;
+    }
+    signal();
+    current.interrupt();
+    try {
+      current.join(5_000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Один прохід синхронізації в потоці виклику: для симуляції й тестів, без {@link #start()}. */
+  public void syncNow() {
+    syncSafely();
+  }
+
+  /** Просить синхронізуватися раніше, але не частіше ніж раз на {@code minIntervalMillis}. */
+  public void requestSync() {
+    lock.lock();
+    try {
+      syncRequested = true;
+      wakeCondition.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public SyncStats stats() {
+    long now = System.currentTimeMillis();
+    return new SyncStats(
+        lastSuccessMillis == 0 ? -1 : now - lastSuccessMillis,
+        lastAttemptMillis,
+        lastSuccessMillis,
+        lastDurationMillis,
+        lastFetchedCount,
+        successes,
+        failures,
+        unchangedFetches,
+        policy.currentIntervalMillis(),
+        durations.snapshot());
+  }
+
+  /** Будить потік, щоб він перерахував час наступної синхронізації (наприклад, черга змінилась). */
+  public void signal() {
+    lock.lock();
+    try {
+      wakeCondition.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void loop() {
+    boolean skipSync = restored;
+    while (running) {
+      if (!skipSync) {
+        syncSafely();
+      }
+      skipSync = false;
+      try {
+        awaitNextSync();
+      } catch (InterruptedException e) {
+        if (!running) {
+          return;
+        }
+      }
+    }
+  }
+
+  private void awaitNextSync() throws InterruptedException {
+    lock.lock();
+    try {
+      while (running) {
+        long now = System.currentTimeMillis();
+        long wakeAt =
+            syncRequested
+                ? lastAttemptMillis + minIntervalMillis
+                : policy.nextSyncAt(lastAttemptMillis, nextFireAtMillis.getAsLong());
+        if (now >= wakeAt) {
+          break;
+        }
+        wakeCondition.await(wakeAt - now, TimeUnit.MILLISECONDS);
+      }
+      syncRequested = false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Будь-який виняток синхронізації — розбір відповіді, запис у сховище — рахується збоєм і не
+   * зупиняє потік: інакше синхронізація мовчки припинилася б назавжди.
+   */
+  private void syncSafely() {
+    long start = System.currentTimeMillis();
+    try {
+      syncOnce(start);
+    } catch (IllegalStateException e) {
+      Logger.warn("Skipping remote sync: " + e.getMessage());
+      recordFailure(start);
+    } catch (RuntimeException e) {
+      Logger.error("Remote sync failed: " + e);
+      recordFailure(start);
+    }
+  }
+
+  private void recordFailure(long start) {
+    failures++;
+    policy.onFailure();
+    lastDurationMillis = System.currentTimeMillis() - start;
+    durations.record(lastDurationMillis);
+  }
+
+  private void syncOnce(long start) {
+    lastAttemptMillis = start;
+    List<NotificationInfo> remote = fetcher.get();
+    if (remote == null) {
+      recordFailure(start);
+      return;
+    }
+
+    tombstones.forgetMissing(remote);
+    long fingerprint = fingerprint(remote);
+    boolean changed = !hasFingerprint || fingerprint != lastFingerprint;
+
+    if (changed) {
+      // Спрацьовані сповіщення, чиє віддалене видалення ще в дорозі, не повертаємо в SQLite.
+      List<NotificationInfo> fired = new ArrayList<>();
+      List<NotificationInfo> stored = db.upsertAll(tombstones.withoutFired(remote, fired));
+      if (stored == null) {
+        recordFailure(start);
+        return;
+      }
+      if (!fired.isEmpty()) {
+        Logger.info("Skipped " + fired.size() + " fired notifications awaiting remote deletion.");
+      }
+      handoff.accept(stored);
+    } else {
+      unchangedFetches++;
+    }
+    lastFingerprint = fingerprint;
+    hasFingerprint = true;
+    policy.onResult(changed);
+
+    long end = System.currentTimeMillis();
+    lastSuccessMillis = end;
+    lastDurationMillis = end - start;
+    durations.record(lastDurationMillis);
+    lastFetchedCount = remote.size();
+    successes++;
+    Logger.info(
+        "Remote sync loaded "
+            + remote.size()
+            + " notifications in "
+            + lastDurationMillis
+            + " ms"
+            + (changed ? "" : " (unchanged)")
+            + ", next interval "
+            + policy.currentIntervalMillis()
+            + " ms.");
+  }
+
+  private static long fingerprint(List<NotificationInfo> remote) {
+    long hash = remote.size();
+    for (NotificationInfo info : remote) {
+      long entry = info.getWebId();
+      entry = 31 * entry + info.getFireAt();
+      entry = 31 * entry + Objects.hashCode(info.getTitle());
+      entry = 31 * entry + Objects.hashCode(info.getPayload());
+      entry = 31 * entry + Objects.hashCode(info.getRecurrence());
+      hash += entry * 0x9E3779B97F4A7C15L ^ (entry >>> 29);
+    }
+    return hash;
+  }
+
+  /**
+   * @param lagMillis скільки минуло від останньої вдалої синхронізації, або -1
+   */
+  public record SyncStats(
+      long lagMillis,
+      long lastAttemptMillis,
+      long lastSuccessMillis,
+      long lastDurationMillis,
+      int lastFetchedCount,
+      long successes,
+      long failures,
+      long unchangedFetches,
+      long currentIntervalMillis,
+      Histogram.Snapshot durationMillis) {}
+}
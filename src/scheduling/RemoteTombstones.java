@@ -0,0 +1,123 @@
+package scheduling;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import logger.Logger;
+import structures.NotificationInfo;
+
+/**
+ * webId одноразових сповіщень, що вже спрацювали, але ще можуть прийти з сервера.
+ *
+ * <p>Локальний рядок видаляється одразу після спрацювання, а віддалене видалення чекає в {@link
+ * RemoteDeleteBatcher} (до секунд, з повторами — до хвилини). Синхронізація в цьому проміжку ще
+ * отримує сповіщення з сервера; без цього набору воно було б вставлене під новим локальним id і
+ * спрацювало б удруге. Запис зникає лише тоді, коли сервер підтвердив видалення і наступна вдала
+ * вибірка його вже не повертає.
+ *
+ * <p>Якщо батчер здався ({@link #abandon}), рядок лишається на сервері: наступна вибірка, що його
+ * ще повертає, віддає webId у {@code redelete} на нове видалення, а та, що вже не повертає, прибирає
+ * запис. Тож набір не росте понад те, що сервер справді ще тримає.
+ */
+public final class RemoteTombstones {
+  private enum State {
+    PENDING,
+    ACKNOWLEDGED,
+    ABANDONED
+  }
+
+  private final Map<Integer, State> entries = new HashMap<>();
+  private final Consumer<List<Integer>> redelete;
+
+  /** Набір без повторних видалень: покинуті webId лишаються, доки сервер їх повертає. */
+  public RemoteTombstones() {
+    this(webIds -> {});
+  }
+
+  /** @param redelete ставить покинуті webId, які сервер досі повертає, на нове видалення */
+  public RemoteTombstones(Consumer<List<Integer>> redelete) {
+    this.redelete = redelete;
+  }
+
+  /**
+   * Позначає спрацювання.
+   *
+   * @return {@code false}, якщо цей webId уже спрацював раніше
+   */
+  public synchronized boolean add(int webId) {
+    return entries.putIfAbsent(webId, State.PENDING) == null;
+  }
+
+  public synchronized boolean contains(int webId) {
+    return entries.containsKey(webId);
+  }
+
+  /** Сервер підтвердив видалення цих webId. */
+  public synchronized void acknowledge(List<Integer> webIds) {
+    for (Integer webId : webIds) {
+      entries.replace(webId, State.ACKNOWLEDGED);
+    }
+  }
+
+  /** Батчер вичерпав спроби видалити ці webId. */
+  public synchronized void abandon(List<Integer> webIds) {
+    for (Integer webId : webIds) {
+      entries.replace(webId, State.PENDING, State.ABANDONED);
+    }
+  }
+
+  /**
+   * Прибирає підтверджені й покинуті записи, яких уже немає у вдалій вибірці {@code fetched};
+   * покинуті, які вибірка ще повертає, знову віддає на видалення.
+   */
+  public void forgetMissing(List<NotificationInfo> fetched) {
+    Set<Integer> returned = new HashSet<>();
+    for (NotificationInfo info : fetched) {
+      returned.add(info.getWebId());
+    }
+    List<Integer> retry = new ArrayList<>();
+    synchronized (this) {
+      Iterator<Map.Entry<Integer, State>> it = entries.entrySet().iterator();
+      while (it.hasNext()) {
+        Map.Entry<Integer, State> entry = it.next();
+        if (entry.getValue() == State.PENDING) {
+          continue;
+        }
+        if (!returned.contains(entry.getKey())) {
+          it.remove();
+        } else if (entry.getValue() == State.ABANDONED) {
+          entry.setValue(State.PENDING);
+          retry.add(entry.getKey());
+        }
+      }
+    }
+    // Поза замком: redelete іде в батчер, який сам викликає abandon().
+    if (!retry.isEmpty()) {
+      Logger.info("Retrying remote deletion of " + retry.size() + " abandoned notifications.");
+      redelete.accept(retry);
+    }
+  }
+
+  /** Рядки з {@code infos}, чиї webId не спрацювали; решта додається в {@code skipped}. */
+  public synchronized List<NotificationInfo> withoutFired(
+      List<NotificationInfo> infos, List<NotificationInfo> skipped) {
+    List<NotificationInfo> kept = new ArrayList<>(infos.size());
+    for (NotificationInfo info : infos) {
+      if (info.getWebId() > 0 && entries.containsKey(info.getWebId())) {
+        skipped.add(info);
+      } else {
+        kept.add(info);
+      }
+    }
+    return kept;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+}
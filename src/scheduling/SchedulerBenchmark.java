@@ -0,0 +1,94 @@
+package scheduling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import structures.NotificationInfo;
+
+/**
+ * Порівнює бекенди планувальника на однаковому навантаженні: вставка, скасування частини
+ * записів і повне спрацювання з кроком у віртуальному часі.
+ *
+ * <p>Запуск: {@code java -cp src scheduling.SchedulerBenchmark [count] [horizonDays]}
+ */
+public final class SchedulerBenchmark {
+  private static final long BASE_MILLIS = 1_700_000_000_000L;
+  private static final long STEP_MILLIS = 60_000L;
+
+  private SchedulerBenchmark() {}
+
+  public static void main(String[] args) {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+    int horizonDays = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+    List<NotificationInfo> workload = generate(count, horizonDays * 86_400_000L, 42L);
+
+    for (String backend : List.of("heap", "indexed", "wheel")) {
+      run(backend, workload, horizonDays * 86_400_000L);
+    }
+  }
+
+  private static List<NotificationInfo> generate(int count, long horizonMillis, long seed) {
+    Random random = new Random(seed);
+    List<NotificationInfo> items = new ArrayList<>(count);
+    for (int i = 1; i <= count; i++) {
+      long fireAt = BASE_MILLIS + (long) (random.nextDouble() * horizonMillis);
+      items.add(new NotificationInfo(i, -1, "bench-" + i, null, fireAt));
+    }
+    return items;
+  }
+
+  private static void run(String backend, List<NotificationInfo> template, long horizonMillis) {
+    List<NotificationInfo> workload = new ArrayList<>(template.size());
+    for (NotificationInfo info : template) {
+      workload.add(
+          new NotificationInfo(
+              info.getId(), info.getWebId(), info.getTitle(), info.getPayload(), info.getFireAt()));
+    }
+    NotificationScheduler scheduler =
+        "wheel".equals(backend)
+            ? new TimingWheelScheduler(BASE_MILLIS)
+            : NotificationScheduler.create(backend);
+
+    long start = System.nanoTime();
+    for (NotificationInfo info : workload) {
+      scheduler.schedule(info);
+    }
+    long insertNanos = System.nanoTime() - start;
+
+    int cancels = workload.size() / 10;
+    start = System.nanoTime();
+    for (int i = 0; i < cancels; i++) {
+      scheduler.cancel(workload.get(i * 10).getId());
+    }
+    long cancelNanos = System.nanoTime() - start;
+
+    int reschedules = workload.size() / 10;
+    start = System.nanoTime();
+    for (int i = 0; i < reschedules; i++) {
+      NotificationInfo info = workload.get(i * 10 + 1);
+      scheduler.reschedule(info.getId(), info.getFireAt() + 3_600_000L);
+    }
+    long rescheduleNanos = System.nanoTime() - start;
+
+    long fired = 0;
+    start = System.nanoTime();
+    long end = BASE_MILLIS + horizonMillis + 3_600_000L;
+    for (long now = BASE_MILLIS; now <= end + STEP_MILLIS; now += STEP_MILLIS) {
+      fired += scheduler.pollDue(now).size();
+    }
+    long drainNanos = System.nanoTime() - start;
+
+    System.out.printf(
+        "%-7s n=%d insert=%dms cancel(%d)=%dms reschedule(%d)=%dms drain=%dms fired=%d left=%d%n",
+        backend,
+        workload.size(),
+        insertNanos / 1_000_000,
+        cancels,
+        cancelNanos / 1_000_000,
+        reschedules,
+        rescheduleNanos / 1_000_000,
+        drainNanos / 1_000_000,
+        fired,
+        scheduler.size());
+  }
+}
@@ -0,0 +1,179 @@
+package scheduling;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import logger.Logger;
+import structures.NotificationInfo;
+
+/**
+ * Компактний двійковий знімок стану годинника для теплого старту.
+ *
+ * <p>Містить вікно запланованих сповіщень, позицію keyset-курсора, маркер останньої синхронізації
+ * та кешований адмін-статус. {@code rowCount}, {@code lastInsertedId} і {@code changeCount}
+ * фіксують стан таблиці в момент запису: якщо після перезапуску хоч одне не збігається, знімок
+ * відкидається. Лічильник змін ловить і оновлення — перенесений {@code fire_at} чи повтор.
+ */
+public record SchedulerSnapshot(
+    long savedAtMillis,
+    long rowCount,
+    long lastInsertedId,
+    long changeCount,
+    List<NotificationInfo> window,
+    long cursorFireAt,
+    int cursorId,
+    boolean cursorExhausted,
+    long lastSyncMillis,
+    long syncFingerprint,
+    long syncIntervalMillis,
+    Boolean adminStatus) {
+
+  private static final int MAGIC = 0x4E534E50;
+  private static final int VERSION = 4;
+  /** Стеля розміру файла: знімок — це вікно планувальника, а не вся таблиця. */
+  private static final long MAX_FILE_BYTES = 64L * 1024 * 1024;
+  /** Найменший запис вікна: id, webId, три прапорці null/deferred і fire_at. */
+  private static final int MIN_ENTRY_BYTES = 4 + 4 + 1 + 1 + 1 + 8 + 1;
+
+  /** Пише знімок атомарно: спершу у тимчасовий файл, потім перейменовує. */
+  public void save(Path path) {
+    Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(savedAtMillis);
+      out.writeLong(rowCount);
+      out.writeLong(lastInsertedId);
+      out.writeLong(changeCount);
+      out.writeLong(cursorFireAt);
+      out.writeInt(cursorId);
+      out.writeBoolean(cursorExhausted);
+      out.writeLong(lastSyncMillis);
+      out.writeLong(syncFingerprint);
+      out.writeLong(syncIntervalMillis);
+      out.writeByte(adminStatus == null ? -1 : adminStatus ? 1 : 0);
+      out.writeInt(window.size());
+      for (NotificationInfo info : window) {
+        out.writeInt(info.getId());
+        out.writeInt(info.getWebId());
+        writeNullable(out, info.getTitle());
+        writeNullable(out, info.getPayload());
+        out.writeBoolean(info.isPayloadDeferred());
+        out.writeLong(info.getFireAt());
+        writeNullable(out, info.getRecurrence());
+      }
+    } catch (IOException e) {
+      Logger.warn("Failed to write scheduler snapshot " + path + ": " + e.getMessage());
+      return;
+    }
+    try {
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      Logger.warn("Failed to replace scheduler snapshot " + path + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Довжини у файлі звіряються із залишком байтів, тож обрізаний чи зіпсований знімок дає
+   * {@code null}, а не виняток у потоці годинника.
+   *
+   * @return знімок або {@code null}, якщо файла немає чи він пошкоджений
+   */
+  public static SchedulerSnapshot load(Path path) {
+    try {
+      if (Files.size(path) > MAX_FILE_BYTES) {
+        Logger.warn("Ignoring oversized scheduler snapshot: " + path);
+        return null;
+      }
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      Logger.warn("Failed to read scheduler snapshot " + path + ": " + e.getMessage());
+      return null;
+    }
+    try (DataInputStream in =
+        new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        Logger.warn("Ignoring scheduler snapshot with unknown format: " + path);
+        return null;
+      }
+      long savedAtMillis = in.readLong();
+      long rowCount = in.readLong();
+      long lastInsertedId = in.readLong();
+      long changeCount = in.readLong();
+      long cursorFireAt = in.readLong();
+      int cursorId = in.readInt();
+      boolean cursorExhausted = in.readBoolean();
+      long lastSyncMillis = in.readLong();
+      long syncFingerprint = in.readLong();
+      long syncIntervalMillis = in.readLong();
+      byte admin = in.readByte();
+      int size = in.readInt();
+      if (size < 0 || size > in.available() / MIN_ENTRY_BYTES) {
+        throw new IOException("window size " + size + " exceeds the file");
+      }
+      List<NotificationInfo> window = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        int id = in.readInt();
+        int webId = in.readInt();
+        String title = readNullable(in);
+        String payload = readNullable(in);
+        boolean payloadDeferred = in.readBoolean();
+        long fireAt = in.readLong();
+        String recurrence = readNullable(in);
+        NotificationInfo info = new NotificationInfo(id, webId, title, payload, fireAt, recurrence);
+        window.add(payloadDeferred ? info.withoutPayload() : info);
+      }
+      return new SchedulerSnapshot(
+          savedAtMillis,
+          rowCount,
+          lastInsertedId,
+          changeCount,
+          window,
+          cursorFireAt,
+          cursorId,
+          cursorExhausted,
+          lastSyncMillis,
+          syncFingerprint,
+          syncIntervalMillis,
+          admin < 0 ? null : admin == 1);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException | RuntimeException e) {
+      Logger.warn("Failed to read scheduler snapshot " + path + ": " + e);
+      return null;
+    }
+  }
+
+  private static void writeNullable(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  private static String readNullable(DataInputStream in) throws IOException {
+    if (!in.readBoolean()) {
+      return null;
+    }
+    int length = in.readInt();
+    if (length < 0 || length > in.available()) {
+      throw new IOException("string length " + length + " exceeds the file");
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
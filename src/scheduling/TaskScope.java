@@ -0,0 +1,112 @@
+package scheduling;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import logger.Logger;
+
+/**
+ * Область життя фонових задач: усе, що запущено через {@link #fork}, завершується до виходу з
+ * {@link #close()}.
+ *
+ * <p>Спрощений аналог structured concurrency: після {@code close()} нові задачі відхиляються, вже
+ * запущені отримують {@code closeTimeoutMillis} на завершення, а решта переривається. Тож {@code
+ * stop()} і {@code shutdown()} власників області детерміновані, а не залежать від daemon-потоків.
+ */
+public final class TaskScope implements AutoCloseable {
+  private final String name;
+  private final ExecutorService executor;
+  private final long closeTimeoutMillis;
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicLong failed = new AtomicLong();
+
+  /**
+   * @param platformThreads розмір пулу, якщо {@code mode} платформний; у віртуальному режимі кожна
+   *     задача отримує свій потік
+   */
+  public TaskScope(String name, ExecutionMode mode, int platformThreads, long closeTimeoutMillis) {
+    this.name = name;
+    this.executor = mode.newExecutor(name, platformThreads);
+    this.closeTimeoutMillis = closeTimeoutMillis;
+  }
+
+  /** Запускає задачу; винятки журналюються, а не губляться у {@code Future}. */
+  public void fork(Runnable task) {
+    active.incrementAndGet();
+    try {
+      executor.execute(
+          () -> {
+            try {
+              task.run();
+            } catch (RuntimeException e) {
+              failed.incrementAndGet();
+              Logger.error("Task in scope " + name + " failed: " + e.getMessage(), e);
+            } finally {
+              active.decrementAndGet();
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      active.decrementAndGet();
+      throw new RejectedExecutionException("Scope " + name + " is closed", e);
+    }
+  }
+
+  public int activeTasks() {
+    return active.get();
+  }
+
+  public long failedTasks() {
+    return failed.get();
+  }
+
+  public boolean isClosed() {
+    return executor.isShutdown();
+  }
+
+  /** Більше не приймає задач; запущені доробляються. */
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  /** Чекає завершення задач і перериває ті, що не встигли; переривання не скорочує очікування. */
+  public boolean awaitTermination(long timeoutMillis) {
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    boolean interrupted = false;
+    try {
+      while (true) {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          int dropped = executor.shutdownNow().size();
+          Logger.warn(
+              "Scope "
+                  + name
+                  + " did not finish in time; interrupted "
+                  + active.get()
+                  + " tasks, dropped "
+                  + dropped
+                  + " queued.");
+          return false;
+        }
+        try {
+          if (executor.awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
+            return true;
+          }
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    shutdown();
+    awaitTermination(closeTimeoutMillis);
+  }
+}
@@ -0,0 +1,14 @@
+package scheduling;
+
+/**
+ * Джерело поточного часу (epoch millis) для рішень планувальника.
+ *
+ * <p>У звичайній роботі це {@link #SYSTEM}; симуляція підставляє {@link ManualTimeSource} і
+ * прокручує дні віртуального часу без очікування.
+ */
+@FunctionalInterface
+public interface TimeSource {
+  TimeSource SYSTEM = System::currentTimeMillis;
+
+  long currentTimeMillis();
+}
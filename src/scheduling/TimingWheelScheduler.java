@@ -0,0 +1,222 @@
+package scheduling;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import structures.NotificationInfo;
+
+/**
+ * Ієрархічне колесо часу з тиком в одну мілісекунду.
+ *
+ * <p>Кожен рівень має 64 слоти; запис кладеться на рівень старшого біта, в якому його тик
+ * відрізняється від поточного. Вставка та скасування — O(1), а кожен запис переноситься на нижчий
+ * рівень не більше ніж {@code LEVELS - 1} разів, тож просування теж амортизовано O(1). Порожні
+ * слоти пропускаються через бітові маски зайнятості.
+ */
+public final class TimingWheelScheduler implements NotificationScheduler {
+  private static final int SLOT_BITS = 6;
+  private static final int SLOTS = 1 << SLOT_BITS;
+  private static final int LEVELS = 7;
+  private static final long MAX_TICK = (1L << (SLOT_BITS * LEVELS)) - 1;
+  private static final int DUE_LEVEL = LEVELS;
+
+  private final Node[][] slots = new Node[LEVELS + 1][SLOTS];
+  private final long[] occupied = new long[LEVELS];
+  private final Map<Integer, Node> index = new HashMap<>();
+  private long currentTick;
+  private long earliestDueTick = Long.MAX_VALUE;
+
+  public TimingWheelScheduler() {
+    this(0L);
+  }
+
+  public TimingWheelScheduler(long startMillis) {
+    this.currentTick = clampTick(startMillis);
+  }
+
+  @Override
+  public void schedule(NotificationInfo info) {
+    Node previous = index.remove(info.getId());
+    if (previous != null) {
+      unlink(previous);
+    }
+    Node node = new Node(info, clampTick(info.getFireAtMillis()));
+    index.put(info.getId(), node);
+    place(node);
+  }
+
+  @Override
+  public boolean reschedule(int id, long fireAt) {
+    Node node = index.get(id);
+    if (node == null) {
+      return false;
+    }
+    node.info.setFireAt(fireAt);
+    schedule(node.info);
+    return true;
+  }
+
+  @Override
+  public boolean cancel(int id) {
+    Node node = index.remove(id);
+    if (node == null) {
+      return false;
+    }
+    unlink(node);
+    return true;
+  }
+
+  @Override
+  public boolean contains(int id) {
+    return index.containsKey(id);
+  }
+
+  @Override
+  public long nextFireAtMillis() {
+    if (slots[DUE_LEVEL][0] != null) {
+      return earliestDueTick;
+    }
+    return nextEventTick();
+  }
+
+  @Override
+  public List<NotificationInfo> pollDue(long nowMillis) {
+    advance(clampTick(nowMillis));
+    Node node = slots[DUE_LEVEL][0];
+    if (node == null) {
+      return List.of();
+    }
+    slots[DUE_LEVEL][0] = null;
+    earliestDueTick = Long.MAX_VALUE;
+    List<NotificationInfo> due = new ArrayList<>();
+    while (node != null) {
+      Node next = node.next;
+      index.remove(node.info.getId());
+      node.prev = null;
+      node.next = null;
+      due.add(node.info);
+      node = next;
+    }
+    due.sort(Comparator.comparingLong(NotificationInfo::getFireAtMillis));
+    return due;
+  }
+
+  @Override
+  public List<NotificationInfo> entries() {
+    List<NotificationInfo> entries = new ArrayList<>(index.size());
+    for (Node node : index.values()) {
+      entries.add(node.info);
+    }
+    return entries;
+  }
+
+  @Override
+  public int size() {
+    return index.size();
+  }
+
+  private void advance(long targetTick) {
+    while (true) {
+      long next = nextEventTick();
+      if (next > targetTick) {
+        currentTick = Math.max(currentTick, targetTick);
+        return;
+      }
+      currentTick = next;
+      for (int level = LEVELS - 1; level >= 0; level--) {
+        int slot = digit(currentTick, level);
+        if ((occupied[level] & (1L << slot)) == 0) {
+          continue;
+        }
+        Node node = slots[level][slot];
+        slots[level][slot] = null;
+        occupied[level] &= ~(1L << slot);
+        while (node != null) {
+          Node following = node.next;
+          node.prev = null;
+          node.next = null;
+          place(node);
+          node = following;
+        }
+      }
+    }
+  }
+
+  private long nextEventTick() {
+    for (int level = 0; level < LEVELS; level++) {
+      int current = digit(currentTick, level);
+      long later = current == SLOTS - 1 ? 0L : occupied[level] & (-1L << (current + 1));
+      if (later != 0) {
+        int slot = Long.numberOfTrailingZeros(later);
+        int shift = (level + 1) * SLOT_BITS;
+        long base = (currentTick >>> shift) << shift;
+        return base | ((long) slot << (level * SLOT_BITS));
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+
+  private void place(Node node) {
+    if (node.tick <= currentTick) {
+      link(node, DUE_LEVEL, 0);
+      earliestDueTick = Math.min(earliestDueTick, node.tick);
+      return;
+    }
+    int highestBit = 63 - Long.numberOfLeadingZeros(node.tick ^ currentTick);
+    int level = highestBit / SLOT_BITS;
+    int slot = digit(node.tick, level);
+    link(node, level, slot);
+    occupied[level] |= 1L << slot;
+  }
+
+  private void link(Node node, int level, int slot) {
+    node.level = level;
+    node.slot = slot;
+    Node head = slots[level][slot];
+    node.next = head;
+    if (head != null) {
+      head.prev = node;
+    }
+    slots[level][slot] = node;
+  }
+
+  private void unlink(Node node) {
+    if (node.prev != null) {
+      node.prev.next = node.next;
+    } else {
+      slots[node.level][node.slot] = node.next;
+    }
+    if (node.next != null) {
+      node.next.prev = node.prev;
+    }
+    if (node.level < LEVELS && slots[node.level][node.slot] == null) {
+      occupied[node.level] &= ~(1L << node.slot);
+    }
+    node.prev = null;
+    node.next = null;
+  }
+
+  private static int digit(long tick, int level) {
+    return (int) (tick >>> (level * SLOT_BITS)) & (SLOTS - 1);
+  }
+
+  private static long clampTick(long millis) {
+    return Math.max(0L, Math.min(millis, MAX_TICK));
+  }
+
+  private static final class Node {
+    private final NotificationInfo info;
+    private final long tick;
+    private int level;
+    private int slot;
+    private Node prev;
+    private Node next;
+
+    Node(NotificationInfo info, long tick) {
+      this.info = info;
+      this.tick = tick;
+    }
+  }
+}
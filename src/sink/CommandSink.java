@@ -0,0 +1,61 @@
+package sink;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import structures.NotificationInfo;
+
+/**
+ * Запускає локальний скрипт чи програму на кожне сповіщення.
+ *
+ * <p>Дані передаються змінними середовища {@code NOTIFICATION_ID}, {@code NOTIFICATION_WEB_ID},
+ * {@code NOTIFICATION_TITLE}, {@code NOTIFICATION_PAYLOAD}, {@code NOTIFICATION_FIRE_AT}, тож
+ * командний рядок не потребує екранування. Процес, що не завершився за {@code timeoutMillis},
+ * знищується.
+ */
+public final class CommandSink implements NotificationSink {
+  private final List<String> command;
+  private final long timeoutMillis;
+
+  public CommandSink(List<String> command, long timeoutMillis) {
+    if (command.isEmpty()) {
+      throw new IllegalArgumentException("Command sink needs a command");
+    }
+    this.command = List.copyOf(command);
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  @Override
+  public String name() {
+    return "command:" + command.get(0);
+  }
+
+  @Override
+  public void deliver(NotificationInfo info) throws IOException, InterruptedException {
+    ProcessBuilder builder = new ProcessBuilder(new ArrayList<>(command));
+    builder.redirectErrorStream(true);
+    builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+    Map<String, String> env = builder.environment();
+    env.put("NOTIFICATION_ID", String.valueOf(info.getId()));
+    env.put("NOTIFICATION_WEB_ID", String.valueOf(info.getWebId()));
+    env.put("NOTIFICATION_TITLE", info.getTitle() == null ? "" : info.getTitle());
+    env.put("NOTIFICATION_PAYLOAD", info.getPayload() == null ? "" : info.getPayload());
+    env.put("NOTIFICATION_FIRE_AT", String.valueOf(info.getFireAt()));
+
+    Process process = builder.start();
+    try {
+      if (!process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS)) {
+        throw new IOException("Command " + command.get(0) + " timed out");
+      }
+      if (process.exitValue() != 0) {
+        throw new IOException("Command " + command.get(0) + " exited with " + process.exitValue());
+      }
+    } finally {
+      if (process.isAlive()) {
+        process.destroyForcibly();
+      }
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package sink;
+
+import java.util.List;
+import structures.NotificationInfo;
+
+public final class ConsoleSink implements NotificationSink {
+
+  @Override
+  public String name() {
+    return "console";
+  }
+
+  @Override
+  public void deliver(NotificationInfo info) {
+    System.out.println("Notifying: " + info.toString());
+  }
+
+  @Override
+  public void deliverSummary(List<NotificationInfo> infos) {
+    System.out.println("Notifying about " + infos.size() + " missed notifications");
+    for (NotificationInfo info : infos) {
+      System.out.println("  " + info.toString());
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package sink;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import logger.Logger;
+import structures.NotificationInfo;
+
+/** Дописує кожне сповіщення окремим рядком у файл; файл відкривається один раз. */
+public final class LogFileSink implements NotificationSink {
+  private static final DateTimeFormatter formatter =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+  private final Path path;
+  private BufferedWriter writer;
+
+  public LogFileSink(Path path) {
+    this.path = path;
+  }
+
+  @Override
+  public String name() {
+    return "log:" + path;
+  }
+
+  @Override
+  public void deliver(NotificationInfo info) throws IOException {
+    write(info.toString());
+    writer.flush();
+  }
+
+  @Override
+  public void deliverSummary(List<NotificationInfo> infos) throws IOException {
+    write("Summary of " + infos.size() + " missed notifications");
+    for (NotificationInfo info : infos) {
+      write("  " + info.toString());
+    }
+    writer.flush();
+  }
+
+  private void write(String line) throws IOException {
+    if (writer == null) {
+      writer =
+          Files.newBufferedWriter(
+              path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+    writer.write("[" + LocalDateTime.now().format(formatter) + "] " + line);
+    writer.newLine();
+  }
+
+  @Override
+  public void close() {
+    if (writer == null) {
+      return;
+    }
+    try {
+      writer.close();
+    } catch (IOException e) {
+      Logger.warn("Failed to close notification log " + path + ": " + e.getMessage());
+    }
+    writer = null;
+  }
+}
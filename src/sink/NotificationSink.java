@@ -0,0 +1,26 @@
+package sink;
+
+import java.util.List;
+import structures.NotificationInfo;
+
+/**
+ * Місце, куди доставляється сповіщення, що спрацювало: popup, консоль, файл, зовнішня команда.
+ *
+ * <p>Методи викликаються з власного потоку {@link SinkChannel}, тож можуть блокувати, не
+ * затримуючи інші приймачі чи годинник.
+ */
+public interface NotificationSink {
+
+  String name();
+
+  void deliver(NotificationInfo info) throws Exception;
+
+  /** Зведення прострочених сповіщень; за замовчуванням доставляє їх по одному. */
+  default void deliverSummary(List<NotificationInfo> infos) throws Exception {
+    for (NotificationInfo info : infos) {
+      deliver(info);
+    }
+  }
+
+  default void close() {}
+}
@@ -0,0 +1,24 @@
+package sink;
+
+import java.util.List;
+import structures.NotificationInfo;
+import ui.NotificationPopup;
+
+/** Swing-popup у куті екрана; на headless-машинах не має сенсу. */
+public final class PopupSink implements NotificationSink {
+
+  @Override
+  public String name() {
+    return "popup";
+  }
+
+  @Override
+  public void deliver(NotificationInfo info) {
+    NotificationPopup.show(info);
+  }
+
+  @Override
+  public void deliverSummary(List<NotificationInfo> infos) {
+    NotificationPopup.showSummary(infos);
+  }
+}
@@ -0,0 +1,195 @@
+package sink;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import logger.Logger;
+import scheduling.ExecutionMode;
+import scheduling.Histogram;
+import structures.NotificationInfo;
+
+/**
+ * Обмежена черга доставки до одного приймача з власним потоком.
+ *
+ * <p>Коли черга заповнена, {@link OverflowPolicy} вирішує, що робити: відкинути нове, відкинути
+ * найстаріше чи заблокувати відправника. Повільний приймач так гальмує лише себе.
+ */
+public final class SinkChannel {
+  public enum OverflowPolicy {
+    DROP_NEWEST,
+    DROP_OLDEST,
+    BLOCK
+  }
+
+  private final NotificationSink sink;
+  private final int capacity;
+  private final OverflowPolicy policy;
+  private final ArrayDeque<Delivery> queue = new ArrayDeque<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+  private final Thread worker;
+  private volatile boolean closed;
+
+  private final AtomicLong delivered = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final Histogram latency = new Histogram();
+
+  public SinkChannel(
+      NotificationSink sink, int capacity, OverflowPolicy policy, ExecutionMode mode) {
+    this.sink = sink;
+    this.capacity = Math.max(1, capacity);
+    this.policy = policy;
+    this.worker = mode.newThread("sink-" + sink.name(), this::run);
+    this.worker.start();
+  }
+
+  public String name() {
+    return sink.name();
+  }
+
+  public void offer(NotificationInfo info) {
+    enqueue(new Delivery(info, null, System.nanoTime()));
+  }
+
+  public void offerSummary(List<NotificationInfo> infos) {
+    enqueue(new Delivery(null, List.copyOf(infos), System.nanoTime()));
+  }
+
+  private void enqueue(Delivery delivery) {
+    lock.lock();
+    try {
+      while (!closed && queue.size() >= capacity) {
+        switch (policy) {
+          case DROP_NEWEST -> {
+            drop(delivery);
+            return;
+          }
+          case DROP_OLDEST -> drop(queue.poll());
+          case BLOCK -> notFull.awaitUninterruptibly();
+        }
+      }
+      if (closed) {
+        drop(delivery);
+        return;
+      }
+      queue.add(delivery);
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void drop(Delivery delivery) {
+    long count = delivery.summary != null ? delivery.summary.size() : 1;
+    if (dropped.getAndAdd(count) == 0) {
+      Logger.warn("Sink " + sink.name() + " is overflowing (" + policy + "), dropping deliveries.");
+    }
+  }
+
+  private void run() {
+    while (true) {
+      Delivery next;
+      lock.lock();
+      try {
+        while (queue.isEmpty() && !closed) {
+          notEmpty.awaitUninterruptibly();
+        }
+        next = queue.poll();
+        if (next == null) {
+          return;
+        }
+        notFull.signal();
+      } finally {
+        lock.unlock();
+      }
+      deliver(next);
+    }
+  }
+
+  private void deliver(Delivery delivery) {
+    try {
+      if (delivery.summary != null) {
+        sink.deliverSummary(delivery.summary);
+      } else {
+        sink.deliver(delivery.info);
+      }
+      delivered.addAndGet(delivery.summary != null ? delivery.summary.size() : 1);
+    } catch (InterruptedException e) {
+      failed.incrementAndGet();
+      Thread.currentThread().interrupt();
+      Logger.warn("Delivery to " + sink.name() + " interrupted.");
+    } catch (Exception e) {
+      failed.incrementAndGet();
+      Logger.warn("Delivery to " + sink.name() + " failed: " + e.getMessage());
+    } finally {
+      latency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - delivery.enqueuedNanos));
+    }
+  }
+
+  public SinkStats stats() {
+    int depth;
+    lock.lock();
+    try {
+      depth = queue.size();
+    } finally {
+      lock.unlock();
+    }
+    return new SinkStats(
+        sink.name(),
+        depth,
+        capacity,
+        policy,
+        delivered.get(),
+        failed.get(),
+        dropped.get(),
+        latency.snapshot());
+  }
+
+  /** Доставляє вже прийняте протягом {@code timeoutMillis}, решту відкидає й закриває приймач. */
+  public void close(long timeoutMillis) {
+    lock.lock();
+    try {
+      closed = true;
+      notEmpty.signalAll();
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    try {
+      worker.join(timeoutMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (worker.isAlive()) {
+      worker.interrupt();
+      lock.lock();
+      try {
+        queue.forEach(this::drop);
+        queue.clear();
+      } finally {
+        lock.unlock();
+      }
+    }
+    sink.close();
+  }
+
+  private record Delivery(NotificationInfo info, List<NotificationInfo> summary, long enqueuedNanos) {}
+
+  /**
+   * @param latencyMillis час від постановки в чергу до завершення доставки
+   */
+  public record SinkStats(
+      String name,
+      int queueDepth,
+      int capacity,
+      OverflowPolicy policy,
+      long delivered,
+      long failed,
+      long dropped,
+      Histogram.Snapshot latencyMillis) {}
+}
@@ -0,0 +1,106 @@
+package sink;
+
+import java.awt.GraphicsEnvironment;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import scheduling.ExecutionMode;
+import structures.NotificationInfo;
+
+/** Розсилає кожне сповіщення в усі приймачі, кожен через свою {@link SinkChannel}. */
+public final class SinkRouter {
+  private static final long COMMAND_TIMEOUT_MILLIS = 10_000;
+
+  private final List<SinkChannel> channels;
+
+  public SinkRouter(
+      List<NotificationSink> sinks,
+      int capacity,
+      SinkChannel.OverflowPolicy policy,
+      ExecutionMode mode) {
+    List<SinkChannel> created = new ArrayList<>(sinks.size());
+    for (NotificationSink sink : sinks) {
+      created.add(new SinkChannel(sink, capacity, policy, mode));
+    }
+    this.channels = List.copyOf(created);
+  }
+
+  public void deliver(NotificationInfo info) {
+    for (SinkChannel channel : channels) {
+      channel.offer(info);
+    }
+  }
+
+  public void deliverSummary(List<NotificationInfo> infos) {
+    for (SinkChannel channel : channels) {
+      channel.offerSummary(infos);
+    }
+  }
+
+  public List<SinkChannel.SinkStats> stats() {
+    return channels.stream().map(SinkChannel::stats).toList();
+  }
+
+  public void close(long timeoutMillis) {
+    for (SinkChannel channel : channels) {
+      channel.close(timeoutMillis);
+    }
+  }
+
+  /** Консоль і, якщо є дисплей, Swing-popup — поведінка до появи приймачів. */
+  public static List<NotificationSink> defaults() {
+    if (GraphicsEnvironment.isHeadless()) {
+      return List.of(new ConsoleSink());
+    }
+    return List.of(new ConsoleSink(), new PopupSink());
+  }
+
+  /**
+   * Розбирає список приймачів через кому: {@code popup}, {@code console}, {@code log:<file>}, {@code
+   * command:<program args...>}, {@code webhook:<url>}.
+   */
+  public static List<NotificationSink> parse(String spec) {
+    if (spec == null || spec.isBlank()) {
+      return defaults();
+    }
+    List<NotificationSink> sinks = new ArrayList<>();
+    for (String item : spec.split(",")) {
+      String entry = item.trim();
+      int colon = entry.indexOf(':');
+      String kind = (colon < 0 ? entry : entry.substring(0, colon)).toLowerCase();
+      String argument = colon < 0 ? "" : entry.substring(colon + 1).trim();
+      switch (kind) {
+        case "popup" -> sinks.add(new PopupSink());
+        case "console" -> sinks.add(new ConsoleSink());
+        case "log" -> sinks.add(
+            new LogFileSink(Path.of(argument.isEmpty() ? "notifications.log" : argument)));
+        case "command" -> sinks.add(
+            new CommandSink(Arrays.asList(argument.split("\\s+")), COMMAND_TIMEOUT_MILLIS));
+        case "webhook" -> {
+          try {
+            sinks.add(new WebhookSink(new URL(argument)));
+          } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid webhook URL: " + argument, e);
+          }
+        }
+        default -> throw new IllegalArgumentException("Unknown notification sink: " + entry);
+      }
+    }
+    return sinks;
+  }
+
+  public static SinkChannel.OverflowPolicy parsePolicy(String name) {
+    if (name == null || name.isBlank()) {
+      return SinkChannel.OverflowPolicy.DROP_OLDEST;
+    }
+    return switch (name.trim().toLowerCase()) {
+      case "drop-newest" -> SinkChannel.OverflowPolicy.DROP_NEWEST;
+      case "drop-oldest" -> SinkChannel.OverflowPolicy.DROP_OLDEST;
+      case "block" -> SinkChannel.OverflowPolicy.BLOCK;
+      default -> throw new IllegalArgumentException("Unknown sink overflow policy: " + name);
+    };
+  }
+}
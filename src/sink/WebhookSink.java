@@ -0,0 +1,79 @@
+package sink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import structures.NotificationInfo;
+import web.Client;
+
+/** Надсилає сповіщення POST-запитом з JSON на локальний webhook. */
+public final class WebhookSink implements NotificationSink {
+  private static final int CONNECT_TIMEOUT_MILLIS = 2_000;
+  private static final int READ_TIMEOUT_MILLIS = 5_000;
+
+  private final URL url;
+
+  public WebhookSink(URL url) {
+    this.url = url;
+  }
+
+  @Override
+  public String name() {
+    return "webhook:" + url;
+  }
+
+  @Override
+  public void deliver(NotificationInfo info) throws IOException {
+    post("{\"notification\":" + toJson(info) + "}");
+  }
+
+  @Override
+  public void deliverSummary(List<NotificationInfo> infos) throws IOException {
+    StringBuilder sb = new StringBuilder("{\"summary\":[");
+    for (int i = 0; i < infos.size(); i++) {
+      if (i > 0) {
+        sb.append(",");
+      }
+      sb.append(toJson(infos.get(i)));
+    }
+    sb.append("]}");
+    post(sb.toString());
+  }
+
+  private void post(String body) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    try {
+      connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+      connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+      connection.setRequestMethod("POST");
+      connection.setDoOutput(true);
+      connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+      try (OutputStream out = connection.getOutputStream()) {
+        out.write(body.getBytes(StandardCharsets.UTF_8));
+      }
+      int status = connection.getResponseCode();
+      if (status < 200 || status >= 300) {
+        throw new IOException("Webhook " + url + " answered " + status);
+      }
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  private static String toJson(NotificationInfo n) {
+    return "{\"id\":"
+        + n.getId()
+        + ",\"webId\":"
+        + n.getWebId()
+        + ",\"title\":\""
+        + Client.escapeJson(n.getTitle())
+        + "\",\"payload\":"
+        + (n.getPayload() == null ? "null" : "\"" + Client.escapeJson(n.getPayload()) + "\"")
+        + ",\"fireAt\":"
+        + n.getFireAt()
+        + "}";
+  }
+}
@@ -1,18 +1,29 @@
 package structures;
 
+import java.time.ZoneId;
+
 public class NotificationInfo {
   private int id;
   private int webId;
   private String title;
   private String payload;
   private long fireAt;
+  private String recurrence;
+  private boolean payloadDeferred;
 
   public NotificationInfo(int id, int webId, String title, String payload, long fireAt) {
+    this(id, webId, title, payload, fireAt, null);
+  }
+
+  /** @param recurrence правило {@link Recurrence} або {@code null} для одноразового сповіщення */
+  public NotificationInfo(
+      int id, int webId, String title, String payload, long fireAt, String recurrence) {
     this.id = id; // TODO: remove id
     this.webId = webId;
     this.title = title;
     this.payload = payload;
     this.fireAt = fireAt;
+    this.recurrence = recurrence == null || recurrence.isBlank() ? null : recurrence;
   }
 
   public int getId() {
@@ -31,10 +42,77 @@ public class NotificationInfo {
     return payload;
   }
 
+  /** Чи лишився payload у сховищі: див. {@link #withoutPayload()}. */
+  public boolean isPayloadDeferred() {
+    return payloadDeferred;
+  }
+
+  /**
+   * Легкий запис для черги планувальника: без payload, який дочитується зі сховища за {@code id}
+   * перед спрацюванням і встановлюється через {@link #setPayload}.
+   */
+  public NotificationInfo withoutPayload() {
+    NotificationInfo entry = new NotificationInfo(id, webId, title, null, fireAt, recurrence);
+    entry.payloadDeferred = true;
+    return entry;
+  }
+
   public long getFireAt() {
     return fireAt;
   }
 
+  public String getRecurrence() {
+    return recurrence;
+  }
+
+  public boolean isRecurring() {
+    return recurrence != null;
+  }
+
+  /**
+   * Наступне спрацювання повторюваного сповіщення, пізніше за {@code afterMillis}, у тих самих
+   * одиницях {@code fireAt}, що й поточне.
+   *
+   * @return копія з новим {@code fireAt} або {@code null}, якщо сповіщення одноразове чи правило
+   *     більше не має спрацювань
+   */
+  public NotificationInfo nextOccurrence(long afterMillis) {
+    Recurrence rule = Recurrence.parse(recurrence);
+    if (rule == null) {
+      return null;
+    }
+    long next = rule.nextAfter(getFireAtMillis(), afterMillis, ZoneId.systemDefault());
+    if (next == Long.MAX_VALUE) {
+      return null;
+    }
+    boolean inSeconds = fireAt < 1_000_000_000_000L;
+    long nextFireAt = inSeconds ? (next + 999) / 1000 : next;
+    NotificationInfo occurrence =
+        new NotificationInfo(id, webId, title, payload, nextFireAt, recurrence);
+    occurrence.payloadDeferred = payloadDeferred;
+    return occurrence;
+  }
+
+  /**
+   * {@code fireAt}, що лишається після синхронізації {@code remote} поверх збереженого {@code
+   * stored}. Сервер зберігає перше спрацювання правила, тож локально вже пораховане наступне при
+   * тому самому правилі не відкочується. Порівняння — в мілісекундах, бо старі записи зберігають
+   * секунди; усі бекенди сховища вирішують конфлікт цим методом.
+   */
+  public static long syncedFireAt(NotificationInfo stored, NotificationInfo remote) {
+    if (remote.isRecurring()
+        && remote.getRecurrence().equals(stored.getRecurrence())
+        && stored.getFireAtMillis() > remote.getFireAtMillis()) {
+      return stored.getFireAt();
+    }
+    return remote.getFireAt();
+  }
+
+  /** {@code fireAt} у мілісекундах: старі записи зберігають секунди. */
+  public long getFireAtMillis() {
+    return fireAt < 1_000_000_000_000L ? fireAt * 1000L : fireAt;
+  }
+
   public void setId(int id) {
     this.id = id;
   }
@@ -49,12 +127,17 @@ public class NotificationInfo {
 
   public void setPayload(String payload) {
     this.payload = payload;
+    this.payloadDeferred = false;
   }
 
   public void setFireAt(long fireAt) {
     this.fireAt = fireAt;
   }
 
+  public void setRecurrence(String recurrence) {
+    this.recurrence = recurrence == null || recurrence.isBlank() ? null : recurrence;
+  }
+
   public String toString() {
     return "NotificationInfo {id="
         + id
@@ -63,9 +146,10 @@ public class NotificationInfo {
         + " | title="
         + title
         + " | payload="
-        + payload
+        + (payloadDeferred ? "<deferred>" : payload)
         + " | fire_at="
         + fireAt
+        + (recurrence == null ? "" : " | recurrence=" + recurrence)
         + "}";
   }
   ;
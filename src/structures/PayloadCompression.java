@@ -0,0 +1,71 @@
+package structures;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate-стиснення великих тіл сповіщень: для колонки {@code payload} у SQLite та HTTP-тіл із
+ * {@code Content-Encoding: deflate}. Формат — zlib-потік, як його пише {@link Deflater} за
+ * замовчуванням.
+ */
+public final class PayloadCompression {
+
+  private PayloadCompression() {}
+
+  /**
+   * @return стиснений UTF-8 текст або {@code null}, якщо він не довший за {@code thresholdBytes}
+   *     чи стиснення не дає виграшу
+   */
+  public static byte[] compressIfLarger(String text, int thresholdBytes) {
+    if (text == null) {
+      return null;
+    }
+    byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+    if (raw.length <= thresholdBytes) {
+      return null;
+    }
+    byte[] packed = deflate(raw);
+    return packed.length < raw.length ? packed : null;
+  }
+
+  public static byte[] deflate(byte[] raw) {
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    try {
+      deflater.setInput(raw);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+      byte[] buffer = new byte[4096];
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /** @throws IllegalArgumentException якщо дані не є повним zlib-потоком */
+  public static String inflate(byte[] packed) {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(packed);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(packed.length * 3);
+      byte[] buffer = new byte[4096];
+      while (!inflater.finished()) {
+        int n = inflater.inflate(buffer);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IllegalArgumentException("Truncated compressed payload");
+        }
+        out.write(buffer, 0, n);
+      }
+      return out.toString(StandardCharsets.UTF_8);
+    } catch (DataFormatException e) {
+      throw new IllegalArgumentException("Corrupt compressed payload: " + e.getMessage(), e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
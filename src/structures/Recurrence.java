@@ -0,0 +1,224 @@
+package structures;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.BitSet;
+
+/**
+ * Правило повторення сповіщення.
+ *
+ * <p>Підтримує два формати:
+ *
+ * <ul>
+ *   <li>{@code every:<n><s|m|h|d|w>} — фіксований інтервал, відрахований від першого {@code
+ *       fireAt}, тож час не «пливе»;
+ *   <li>{@code cron:<хв> <год> <день> <місяць> <день тижня>} — спрощений cron: {@code *}, числа,
+ *       списки через кому, діапазони {@code a-b} і крок {@code /n}; неділя — 0 або 7.
+ * </ul>
+ *
+ * Зберігається наступне спрацювання, а не всі майбутні: {@link #nextAfter} обчислює його, коли
+ * поточне вже спрацювало.
+ */
+public final class Recurrence {
+  private static final int MAX_CRON_SEARCH_DAYS = 366 * 5;
+
+  private final String spec;
+  private final long intervalMillis;
+  private final BitSet minutes;
+  private final BitSet hours;
+  private final BitSet daysOfMonth;
+  private final BitSet months;
+  private final BitSet daysOfWeek;
+  private final boolean anyDayOfMonth;
+  private final boolean anyDayOfWeek;
+
+  private Recurrence(String spec, long intervalMillis, String[] cron) {
+    this.spec = spec;
+    this.intervalMillis = intervalMillis;
+    if (cron == null) {
+      minutes = hours = daysOfMonth = months = daysOfWeek = null;
+      anyDayOfMonth = anyDayOfWeek = true;
+      return;
+    }
+    minutes = parseField(cron[0], 0, 59);
+    hours = parseField(cron[1], 0, 23);
+    daysOfMonth = parseField(cron[2], 1, 31);
+    months = parseField(cron[3], 1, 12);
+    daysOfWeek = parseField(cron[4], 0, 7);
+    if (daysOfWeek.get(7)) {
+      daysOfWeek.set(0);
+    }
+    anyDayOfMonth = cron[2].equals("*");
+    anyDayOfWeek = cron[4].equals("*");
+  }
+
+  /**
+   * @return правило або {@code null} для порожнього рядка
+   * @throws IllegalArgumentException якщо рядок не розпізнано
+   */
+  public static Recurrence parse(String spec) {
+    if (spec == null || spec.isBlank()) {
+      return null;
+    }
+    String trimmed = spec.trim();
+    int colon = trimmed.indexOf(':');
+    String kind = colon < 0 ? "" : trimmed.substring(0, colon).toLowerCase();
+    String body = colon < 0 ? "" : trimmed.substring(colon + 1).trim();
+    switch (kind) {
+      case "every" -> {
+        long interval = parseInterval(body);
+        return new Recurrence("every:" + body, interval, null);
+      }
+      case "cron" -> {
+        String[] fields = body.split("\\s+");
+        if (fields.length != 5) {
+          throw new IllegalArgumentException("Cron rule needs 5 fields: " + spec);
+        }
+        return new Recurrence("cron:" + String.join(" ", fields), 0, fields);
+      }
+      default -> throw new IllegalArgumentException("Unknown recurrence rule: " + spec);
+    }
+  }
+
+  /**
+   * Перше спрацювання, строго пізніше за {@code afterMillis}.
+   *
+   * @param anchorMillis попереднє спрацювання; інтервал відраховується від нього
+   * @return epoch millis або {@link Long#MAX_VALUE}, якщо cron не має збігів у найближчі роки
+   */
+  public long nextAfter(long anchorMillis, long afterMillis, ZoneId zone) {
+    if (intervalMillis > 0) {
+      if (anchorMillis > afterMillis) {
+        return anchorMillis;
+      }
+      long steps = (afterMillis - anchorMillis) / intervalMillis + 1;
+      return anchorMillis + steps * intervalMillis;
+    }
+    return nextCronAfter(afterMillis, zone);
+  }
+
+  private long nextCronAfter(long afterMillis, ZoneId zone) {
+    LocalDateTime start =
+        LocalDateTime.ofInstant(Instant.ofEpochMilli(afterMillis), zone)
+            .withSecond(0)
+            .withNano(0)
+            .plusMinutes(1);
+    LocalDate day = start.toLocalDate();
+    int fromMinuteOfDay = start.getHour() * 60 + start.getMinute();
+    for (int i = 0; i < MAX_CRON_SEARCH_DAYS; i++, day = day.plusDays(1), fromMinuteOfDay = 0) {
+      if (!months.get(day.getMonthValue()) || !matchesDay(day)) {
+        continue;
+      }
+      for (int hour = hours.nextSetBit(fromMinuteOfDay / 60);
+          hour >= 0 && hour < 24;
+          hour = hours.nextSetBit(hour + 1)) {
+        int fromMinute = hour == fromMinuteOfDay / 60 ? fromMinuteOfDay % 60 : 0;
+        for (int minute = minutes.nextSetBit(fromMinute);
+            minute >= 0 && minute < 60;
+            minute = minutes.nextSetBit(minute + 1)) {
+          ZonedDateTime next = ZonedDateTime.of(day, LocalTime.of(hour, minute), zone);
+          // Коли годинник переводять назад, година повторюється, а of() бере ранній зсув: у
+          // другому проході кандидат опинився б раніше за afterMillis.
+          if (next.toInstant().toEpochMilli() <= afterMillis) {
+            next = next.withLaterOffsetAtOverlap();
+          }
+          if (next.toInstant().toEpochMilli() > afterMillis) {
+            return next.toInstant().toEpochMilli();
+          }
+        }
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+
+  /** Як у cron: якщо обмежено і день місяця, і день тижня, достатньо збігу одного з них. */
+  private boolean matchesDay(LocalDate day) {
+    boolean domMatch = daysOfMonth.get(day.getDayOfMonth());
+    boolean dowMatch = daysOfWeek.get(day.getDayOfWeek().getValue() % 7);
+    if (anyDayOfMonth || anyDayOfWeek) {
+      return domMatch && dowMatch;
+    }
+    return domMatch || dowMatch;
+  }
+
+  private static long parseInterval(String body) {
+    if (body.length() < 2) {
+      throw new IllegalArgumentException("Invalid recurrence interval: " + body);
+    }
+    long amount;
+    try {
+      amount = Long.parseLong(body.substring(0, body.length() - 1));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid recurrence interval: " + body, e);
+    }
+    Duration unit =
+        switch (Character.toLowerCase(body.charAt(body.length() - 1))) {
+          case 's' -> Duration.ofSeconds(1);
+          case 'm' -> Duration.ofMinutes(1);
+          case 'h' -> Duration.ofHours(1);
+          case 'd' -> Duration.ofDays(1);
+          case 'w' -> Duration.ofDays(7);
+          default -> throw new IllegalArgumentException("Invalid recurrence unit: " + body);
+        };
+    if (amount <= 0) {
+      throw new IllegalArgumentException("Recurrence interval must be positive: " + body);
+    }
+    return unit.toMillis() * amount;
+  }
+
+  private static BitSet parseField(String field, int min, int max) {
+    BitSet bits = new BitSet(max + 1);
+    for (String part : field.split(",")) {
+      int step = 1;
+      int slash = part.indexOf('/');
+      String range = part;
+      if (slash >= 0) {
+        step = parseNumber(part.substring(slash + 1), 1, max);
+        range = part.substring(0, slash);
+      }
+      int from;
+      int to;
+      if (range.equals("*")) {
+        from = min;
+        to = max;
+      } else if (range.contains("-")) {
+        int dash = range.indexOf('-');
+        from = parseNumber(range.substring(0, dash), min, max);
+        to = parseNumber(range.substring(dash + 1), min, max);
+      } else {
+        from = parseNumber(range, min, max);
+        to = slash >= 0 ? max : from;
+      }
+      if (from > to) {
+        throw new IllegalArgumentException("Invalid cron range: " + part);
+      }
+      for (int value = from; value <= to; value += step) {
+        bits.set(value);
+      }
+    }
+    return bits;
+  }
+
+  private static int parseNumber(String text, int min, int max) {
+    int value;
+    try {
+      value = Integer.parseInt(text.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid cron value: " + text, e);
+    }
+    if (value < min || value > max) {
+      throw new IllegalArgumentException("Cron value out of range " + min + "-" + max + ": " + text);
+    }
+    return value;
+  }
+
+  @Override
+  public String toString() {
+    return spec;
+  }
+}
@@ -5,6 +5,7 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Toolkit;
+import java.util.List;
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JDialog;
@@ -22,6 +23,7 @@ public final class NotificationPopup {
   private static final int WIDTH = 360;
   private static final int HEIGHT = 180;
   private static final int SCREEN_MARGIN = 20;
+  private static final int SUMMARY_MAX_TITLES = 10;
 
   private NotificationPopup() {}
 
@@ -89,6 +91,26 @@ public final class NotificationPopup {
         });
   }
 
+  /** Одне вікно замість окремого popup на кожне прострочене сповіщення. */
+  public static void showSummary(List<NotificationInfo> infos) {
+    if (infos == null || infos.isEmpty()) {
+      return;
+    }
+
+    StringBuilder body = new StringBuilder();
+    int shown = Math.min(infos.size(), SUMMARY_MAX_TITLES);
+    for (int i = 0; i < shown; i++) {
+      String title = infos.get(i).getTitle();
+      body.append("- ").append(title == null || title.isBlank() ? "Notification" : title);
+      body.append('\n');
+    }
+    if (infos.size() > shown) {
+      body.append("... and ").append(infos.size() - shown).append(" more");
+    }
+
+    show(new NotificationInfo(0, 0, "Missed " + infos.size() + " notifications", body.toString(), 0));
+  }
+
   private static void positionDialog(JDialog dialog) {
     Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
     int x = (int) (screen.getWidth() - dialog.getWidth() - SCREEN_MARGIN);
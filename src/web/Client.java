@@ -13,13 +13,17 @@ import java.util.Base64;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.InflaterInputStream;
 import logger.Logger;
 import structures.NotificationInfo;
+import structures.PayloadCompression;
 
 public final class Client {
 
   private static final String DEFAULT_HOST = "127.0.0.1";
   private static final int DEFAULT_PORT = 1488;
+  private static final int CONNECT_TIMEOUT_MILLIS = 5_000;
+  private static final int READ_TIMEOUT_MILLIS = 15_000;
   private static final Pattern ADMIN_STATUS_PATTERN =
       Pattern.compile("\"isAdmin\"\\s*:\\s*(true|false)", Pattern.CASE_INSENSITIVE);
 
@@ -27,6 +31,7 @@ public final class Client {
   private static int port = DEFAULT_PORT;
   private static String username;
   private static String password;
+  private static volatile int compressRequestsAbove = -1;
 
   private Client() {}
 
@@ -39,6 +44,19 @@ public final class Client {
     }
   }
 
+  /**
+   * Вмикає {@code Content-Encoding: deflate} для тіл запитів, довших за {@code thresholdBytes}, і
+   * просить у сервера так само стиснені відповіді ({@code Accept-Encoding: deflate}). Сервер має
+   * це підтримувати, тому за замовчуванням вимкнено. Стиснені відповіді розпаковуються завжди.
+   */
+  public static void enableCompression(int thresholdBytes) {
+    if (thresholdBytes < 0) {
+      throw new IllegalArgumentException(
+          "HTTP compression threshold must not be negative: " + thresholdBytes);
+    }
+    compressRequestsAbove = thresholdBytes;
+  }
+
   public static void setCredentials(String username, String password) {
     Client.username = username;
     Client.password = password;
@@ -84,6 +102,16 @@ public final class Client {
   }
 
   public static List<NotificationInfo> fetchNotifications() {
+    List<NotificationInfo> notifications = tryFetchNotifications();
+    return notifications == null ? List.of() : notifications;
+  }
+
+  /**
+   * Як {@link #fetchNotifications()}, але відрізняє збій від порожнього списку.
+   *
+   * @return сповіщення користувача або {@code null}, якщо запит не вдався
+   */
+  public static List<NotificationInfo> tryFetchNotifications() {
     ensureCredentials();
     HttpResponse response = execute("GET", "/notifications/get", null, true);
 
@@ -91,7 +119,7 @@ public final class Client {
       Logger.warn(
           "Failed to fetch notifications: "
               + (response == null ? "no response" : response.statusCode()));
-      return List.of();
+      return null;
     }
 
     return parseNotifications(response.body());
@@ -263,7 +291,7 @@ public final class Client {
    *
    * @param method HTTP-метод
    * @param path шлях запиту, що починається зі слеша
-   * @param body необов'язковий JSON-пейлоад
+   * @param body необов'язковий JSON-пейлоад; див. {@link #enableCompression}
    * @param includeAuth чи потрібно додавати заголовок basic-auth
    * @return обгортка відповіді або {@code null}, якщо виклик не вдався
    */
@@ -273,10 +301,21 @@ public final class Client {
     try {
       connection = openConnection(method, path, includeAuth);
 
+      int compressAbove = compressRequestsAbove;
+      if (compressAbove >= 0) {
+        connection.setRequestProperty("Accept-Encoding", "deflate");
+      }
+
       if (body != null && !body.isEmpty()) {
         connection.setDoOutput(true);
         connection.setRequestProperty("Content-Type", "application/json");
-        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes =
+            compressAbove < 0 ? null : PayloadCompression.compressIfLarger(body, compressAbove);
+        if (bytes == null) {
+          bytes = body.getBytes(StandardCharsets.UTF_8);
+        } else {
+          connection.setRequestProperty("Content-Encoding", "deflate");
+        }
         connection.setRequestProperty("Content-Length", Integer.toString(bytes.length));
         try (OutputStream out = connection.getOutputStream()) {
           out.write(bytes);
@@ -284,8 +323,12 @@ public final class Client {
       }
 
       int status = connection.getResponseCode();
-      String responseBody =
-          readFully(status >= 400 ? connection.getErrorStream() : connection.getInputStream());
+      InputStream stream =
+          status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+      if (stream != null && "deflate".equalsIgnoreCase(connection.getContentEncoding())) {
+        stream = new InflaterInputStream(stream);
+      }
+      String responseBody = readFully(stream);
       return new HttpResponse(status, responseBody == null ? "" : responseBody);
     } catch (IOException e) {
       Logger.error("HTTP request failed: " + e.getMessage());
@@ -303,6 +346,8 @@ public final class Client {
     URL url = new URL("http://" + host + ":" + port + path);
     HttpURLConnection connection = (HttpURLConnection) url.openConnection();
     connection.setRequestMethod(method);
+    connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+    connection.setReadTimeout(READ_TIMEOUT_MILLIS);
     connection.setUseCaches(false);
     connection.setDoInput(true);
     connection.setRequestProperty("Connection", "close");
@@ -379,6 +424,9 @@ public final class Client {
       }
       sb.append(",");
       sb.append("\"fireAt\":").append(n.getFireAt());
+      if (n.getRecurrence() != null) {
+        sb.append(",\"recurrence\":\"").append(escapeJson(n.getRecurrence())).append("\"");
+      }
       sb.append("}");
     }
 
@@ -571,8 +619,9 @@ public final class Client {
       String title = extractString(entry, "\"title\":\"");
       String payload = extractOptionalString(entry, "\"payload\":");
       long fireAt = extractLong(entry, "\"fireAt\":");
+      String recurrence = extractOptionalString(entry, "\"recurrence\":");
 
-      notifications.add(new NotificationInfo(0, id, title, payload, fireAt));
+      notifications.add(new NotificationInfo(0, id, title, payload, fireAt, recurrence));
     }
 
     return notifications;
@@ -617,7 +666,11 @@ public final class Client {
     if (start < 0) {
       return "";
     }
-    start += key.length();
+    return extractStringAt(source, start + key.length());
+  }
+
+  /** Читає JSON-рядок, що починається одразу після відкривальної лапки. */
+  private static String extractStringAt(String source, int start) {
     StringBuilder sb = new StringBuilder();
     boolean escaping = false;
     for (int i = start; i < source.length(); i++) {
@@ -652,7 +705,7 @@ public final class Client {
       return null;
     }
     if (source.charAt(start) == '"') {
-      return extractString(source, key);
+      return extractStringAt(source, start + 1);
     }
     return null;
   }
@@ -668,7 +721,7 @@ public final class Client {
     };
   }
 
-  private static String escapeJson(String value) {
+  public static String escapeJson(String value) {
     if (value == null) {
       return "";
     }
@@ -0,0 +1,35 @@
+package web;
+
+import java.util.List;
+import structures.NotificationInfo;
+
+/**
+ * Віддалені виклики, які робить {@code Clock}. За замовчуванням — {@link #CLIENT}; симуляція
+ * підставляє лічильник замість мережі.
+ */
+public interface RemoteApi {
+  RemoteApi CLIENT =
+      new RemoteApi() {
+        @Override
+        public List<NotificationInfo> fetchNotifications() {
+          return Client.tryFetchNotifications();
+        }
+
+        @Override
+        public boolean deleteNotifications(List<Integer> webIds, boolean superuser) {
+          return Client.deleteNotifications(webIds, superuser);
+        }
+
+        @Override
+        public Boolean fetchAdminStatus() {
+          return Client.fetchAdminStatus();
+        }
+      };
+
+  /** @return сповіщення з сервера або {@code null}, якщо запит не вдався */
+  List<NotificationInfo> fetchNotifications();
+
+  boolean deleteNotifications(List<Integer> webIds, boolean superuser);
+
+  Boolean fetchAdminStatus();
+}
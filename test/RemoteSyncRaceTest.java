@@ -0,0 +1,168 @@
+import db.InMemoryNotificationStore;
+import db.NotificationStore;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import logger.Logger;
+import scheduling.IndexedHeapScheduler;
+import scheduling.ManualTimeSource;
+import sink.NotificationSink;
+import sink.SinkChannel;
+import structures.NotificationInfo;
+import web.RemoteApi;
+
+/**
+ * Синхронізація між спрацюванням і пакетним віддаленим видаленням не повинна повертати сповіщення
+ * в чергу: воно спрацьовує рівно раз.
+ *
+ * <pre>
+ * java -cp out RemoteSyncRaceTest
+ * </pre>
+ */
+public class RemoteSyncRaceTest {
+  private static final long START_MILLIS = 1_700_000_000_000L;
+  private static final int WEB_ID = 7;
+
+  public static void main(String[] args) {
+    Logger.setOutput(Logger.OutputType.NONE);
+    syncBetweenFireAndRemoteDeleteDoesNotFireTwice();
+    abandonedRemoteDeleteIsRetriedOnLaterSync();
+    System.out.println("RemoteSyncRaceTest: OK");
+  }
+
+  static void syncBetweenFireAndRemoteDeleteDoesNotFireTwice() {
+    NotificationStore db = new InMemoryNotificationStore();
+    ManualTimeSource time = new ManualTimeSource(START_MILLIS);
+    FakeServer server = new FakeServer();
+    server.add(new NotificationInfo(0, WEB_ID, "once", null, START_MILLIS / 1000 + 10));
+    List<String> fired = Collections.synchronizedList(new ArrayList<>());
+
+    Clock clock = new Clock(new IndexedHeapScheduler(), time);
+    clock.configureSinks(List.of(new RecordingSink(fired)), 16, SinkChannel.OverflowPolicy.BLOCK);
+    clock.setRemoteApi(server);
+    clock.startSimulation(db);
+
+    clock.syncRemoteNow();
+    clock.runTick(db);
+    check(fired.isEmpty(), "fired before its time");
+
+    time.advanceTo(START_MILLIS + 11_000);
+    clock.runTick(db);
+    check(db.countNotifications() == 0, "local row not deleted after firing");
+    check(server.deleteCalls.get() == 0, "remote delete was not batched");
+
+    // Сервер ще віддає сповіщення (пакет видалення не відправлено), а нове робить відповідь іншою.
+    server.add(new NotificationInfo(0, WEB_ID + 1, "later", null, START_MILLIS / 1000 + 60));
+    clock.syncRemoteNow();
+    time.advanceTo(START_MILLIS + 12_000);
+    clock.runTick(db);
+    check(db.countNotifications() == 1, "fired notification re-synced into the store");
+
+    time.advanceTo(START_MILLIS + 61_000);
+    clock.runTick(db);
+    clock.finishSimulation(db);
+    check(fired.equals(List.of("once", "later")), "expected each to fire once, got " + fired);
+    check(server.deleteCalls.get() > 0, "remote delete never sent");
+    check(server.fetchNotifications().isEmpty(), "server still holds fired notifications");
+  }
+
+  /** Батчер здався, а рядок лишився на сервері: наступна синхронізація ставить його знову. */
+  static void abandonedRemoteDeleteIsRetriedOnLaterSync() {
+    NotificationStore db = new InMemoryNotificationStore();
+    ManualTimeSource time = new ManualTimeSource(START_MILLIS);
+    FakeServer server = new FakeServer();
+    server.add(new NotificationInfo(0, WEB_ID, "once", null, START_MILLIS / 1000 + 10));
+    server.rejectDeletes = true;
+    List<String> fired = Collections.synchronizedList(new ArrayList<>());
+
+    Clock clock = new Clock(new IndexedHeapScheduler(), time);
+    clock.configureSinks(List.of(new RecordingSink(fired)), 16, SinkChannel.OverflowPolicy.BLOCK);
+    clock.setRemoteApi(server);
+    clock.startSimulation(db);
+    clock.syncRemoteNow();
+
+    long now = START_MILLIS;
+    while (clock.getRemoteDeleteStats().idsDropped() == 0 && now < START_MILLIS + 3_600_000) {
+      now += 1_000;
+      time.advanceTo(now);
+      clock.runTick(db);
+    }
+    check(clock.getRemoteDeleteStats().idsDropped() == 1, "batcher never gave up");
+    check(clock.tombstoneCount() == 1, "abandoned webId must stay tombstoned while on the server");
+
+    server.rejectDeletes = false;
+    int callsBefore = server.deleteCalls.get();
+    clock.syncRemoteNow();
+    time.advanceTo(now + 1_000);
+    clock.runTick(db);
+    check(server.deleteCalls.get() > callsBefore, "abandoned webId was not re-submitted");
+    check(server.fetchNotifications().isEmpty(), "server still holds the fired notification");
+
+    clock.syncRemoteNow();
+    check(clock.tombstoneCount() == 0, "tombstone kept after the server dropped the row");
+    clock.finishSimulation(db);
+    check(fired.equals(List.of("once")), "expected a single fire, got " + fired);
+  }
+
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+
+  private static final class RecordingSink implements NotificationSink {
+    private final List<String> titles;
+
+    RecordingSink(List<String> titles) {
+      this.titles = titles;
+    }
+
+    @Override
+    public String name() {
+      return "recording";
+    }
+
+    @Override
+    public void deliver(NotificationInfo info) {
+      titles.add(info.getTitle());
+    }
+  }
+
+  /** Сервер у пам'яті: віддає копії своїх записів і видаляє їх за webId. */
+  private static final class FakeServer implements RemoteApi {
+    final List<NotificationInfo> notifications = new ArrayList<>();
+    final AtomicInteger deleteCalls = new AtomicInteger();
+    volatile boolean rejectDeletes;
+
+    synchronized void add(NotificationInfo n) {
+      notifications.add(n);
+    }
+
+    @Override
+    public synchronized List<NotificationInfo> fetchNotifications() {
+      List<NotificationInfo> copies = new ArrayList<>();
+      for (NotificationInfo n : notifications) {
+        copies.add(
+            new NotificationInfo(
+                0, n.getWebId(), n.getTitle(), n.getPayload(), n.getFireAt(), n.getRecurrence()));
+      }
+      return copies;
+    }
+
+    @Override
+    public synchronized boolean deleteNotifications(List<Integer> webIds, boolean superuser) {
+      deleteCalls.incrementAndGet();
+      if (rejectDeletes) {
+        return false;
+      }
+      notifications.removeIf(n -> webIds.contains(n.getWebId()));
+      return true;
+    }
+
+    @Override
+    public Boolean fetchAdminStatus() {
+      return false;
+    }
+  }
+}
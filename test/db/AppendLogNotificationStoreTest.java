@@ -0,0 +1,105 @@
+package db;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import logger.Logger;
+import structures.NotificationInfo;
+
+/**
+ * Ущільнення журналу пише нове покоління замість підміни відображеного файла, а слухач вставок
+ * викликається поза замком запису.
+ *
+ * <pre>
+ * java -cp out db.AppendLogNotificationStoreTest
+ * </pre>
+ */
+public class AppendLogNotificationStoreTest {
+
+  public static void main(String[] args) throws Exception {
+    Logger.setOutput(Logger.OutputType.NONE);
+    Path dir = Files.createTempDirectory("append-log-test");
+    try {
+      compactionSwitchesToNextGeneration(dir);
+      insertListenerRunsOutsideWriteLock(dir);
+    } finally {
+      try (Stream<Path> files = Files.walk(dir)) {
+        for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+          Files.deleteIfExists(file);
+        }
+      }
+    }
+    System.out.println("AppendLogNotificationStoreTest: OK");
+  }
+
+  static void compactionSwitchesToNextGeneration(Path dir) throws IOException {
+    Path base = dir.resolve("notifications.journal");
+    AppendLogNotificationStore store = new AppendLogNotificationStore(base);
+    for (int i = 1; i <= 10; i++) {
+      store.addNotification(new NotificationInfo(0, i, "n" + i, null, 1_000 + i));
+    }
+    store.deleteNotifications(List.of(1, 2, 3));
+    store.closeDb();
+
+    Path first = dir.resolve("notifications.journal.1");
+    check(Files.exists(first), "closing with garbage should compact into generation 1");
+    check(!Files.exists(base), "the replaced generation should be deleted");
+
+    store = new AppendLogNotificationStore(base);
+    check(store.countNotifications() == 7, "compacted log should keep the live rows");
+    store.addNotification(new NotificationInfo(0, 11, "n11", null, 2_000));
+    check(store.getNotificationByWebId(11).getId() == 11, "ids should continue after compaction");
+    store.deleteNotifications(List.of(4));
+    store.closeDb();
+    check(Files.exists(dir.resolve("notifications.journal.2")), "second compaction: generation 2");
+    check(!Files.exists(first), "generation 1 should be deleted after the switch");
+
+    Files.writeString(dir.resolve("notifications.journal.1"), "stale");
+    store = new AppendLogNotificationStore(base);
+    check(store.countNotifications() == 7, "reopen should read the newest generation");
+    check(!Files.exists(first), "reopen should remove stale generations");
+    store.closeDb();
+  }
+
+  static void insertListenerRunsOutsideWriteLock(Path dir) throws Exception {
+    AppendLogNotificationStore store =
+        new AppendLogNotificationStore(dir.resolve("listener.journal"));
+    AtomicBoolean writerBlocked = new AtomicBoolean();
+    store.setInsertListener(
+        n -> {
+          if (n.getWebId() >= 100) {
+            return;
+          }
+          // Інший потік пише в сховище; під замком запису він чекав би до кінця слухача.
+          Thread writer =
+              new Thread(
+                  () -> {
+                    store.addNotification(new NotificationInfo(0, 100 + n.getWebId(), "w", null, 5));
+                    store.upsertNotificationByWebId(
+                        new NotificationInfo(0, 200 + n.getWebId(), "u", null, 6));
+                  });
+          writer.start();
+          try {
+            writer.join(2_000);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          writerBlocked.compareAndSet(false, writer.isAlive());
+        });
+    store.addNotification(new NotificationInfo(0, 1, "a", null, 1));
+    store.upsertNotificationByWebId(new NotificationInfo(0, 2, "b", null, 2));
+    check(!writerBlocked.get(), "insert listener must not hold the write lock");
+    check(store.countNotifications() == 6, "listener writes should land in the store");
+    store.closeDb();
+  }
+
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package db;
+
+import java.util.List;
+import structures.NotificationInfo;
+
+/**
+ * Читання з відкладеним записом чекає коміту лише тоді, коли поставлені записи зачіпають прочитане.
+ *
+ * <pre>
+ * java -cp out db.PendingFootprintsTest
+ * </pre>
+ */
+public class PendingFootprintsTest {
+
+  public static void main(String[] args) {
+    pageAfterCursorIgnoresUnrelatedWrites();
+    pageSeesInsertsAndMovesInsideItsRange();
+    aggregatesFollowRowCountChanges();
+    System.out.println("PendingFootprintsTest: OK");
+  }
+
+  /** Прохід годинника: спрацьований рядок видаляється, повторюваний переноситься далеко вперед. */
+  static void pageAfterCursorIgnoresUnrelatedWrites() {
+    PendingFootprints pending = new PendingFootprints();
+    pending.add(PendingFootprints.Footprint.delete(List.of(1)));
+    pending.add(PendingFootprints.Footprint.reschedule(List.of(row(2, 5_000))));
+    pending.add(PendingFootprints.Footprint.insert(row(0, 9_000)));
+
+    List<NotificationInfo> page = List.of(row(3, 200), row(4, 300));
+    check(
+        !DataBaseWrapper.pageTouched(pending, 100, 1_000, 2, page),
+        "page after the cursor forced a commit");
+    check(
+        !DataBaseWrapper.pageTouched(pending, 100, Long.MAX_VALUE, 2, page),
+        "full page is covered only up to its last row");
+    check(!pending.touchesIds(List.of(3, 4)), "payload read of untouched rows forced a commit");
+  }
+
+  static void pageSeesInsertsAndMovesInsideItsRange() {
+    PendingFootprints pending = new PendingFootprints();
+    pending.add(PendingFootprints.Footprint.insert(row(0, 250)));
+    check(
+        DataBaseWrapper.pageTouched(pending, 100, 1_000, 10, List.of(row(3, 200))),
+        "insert inside the page range missed");
+
+    pending = new PendingFootprints();
+    pending.add(PendingFootprints.Footprint.reschedule(List.of(row(4, 5_000))));
+    check(
+        DataBaseWrapper.pageTouched(pending, 100, 1_000, 10, List.of(row(3, 200), row(4, 300))),
+        "row moved out of the page not noticed");
+
+    pending = new PendingFootprints();
+    pending.add(PendingFootprints.Footprint.insert(row(0, 700)));
+    check(
+        DataBaseWrapper.pageTouched(pending, 100, 1_000, 10, List.of()),
+        "insert into an empty range missed");
+  }
+
+  static void aggregatesFollowRowCountChanges() {
+    PendingFootprints pending = new PendingFootprints();
+    PendingFootprints.Footprint move = PendingFootprints.Footprint.reschedule(List.of(row(2, 50)));
+    pending.add(move);
+    check(!pending.changesRowCount(), "reschedule counted as a row count change");
+    check(pending.movesRows(), "reschedule hides an old position");
+
+    PendingFootprints.Footprint insert = PendingFootprints.Footprint.insert(row(0, 60));
+    pending.add(insert);
+    check(pending.changesRowCount() && pending.insertsRows(), "insert not counted");
+    PendingFootprints snapshot = pending.copy();
+
+    pending.remove(insert);
+    pending.remove(move);
+    check(pending.isEmpty() && !pending.movesRows(), "footprints not released");
+    check(snapshot.insertsRows(), "snapshot shares state with the live footprints");
+  }
+
+  private static NotificationInfo row(int id, long fireAt) {
+    return new NotificationInfo(id, 0, "n" + id, null, fireAt);
+  }
+
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+}
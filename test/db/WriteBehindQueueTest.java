@@ -0,0 +1,93 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import logger.Logger;
+
+/**
+ * Група, що впала з {@link RuntimeException}, не зникає мовчки: справні записи проходять поодинці,
+ * а відкинуті видно в {@link WriteBehindQueue#dropped()}.
+ *
+ * <pre>
+ * java -cp out db.WriteBehindQueueTest
+ * </pre>
+ */
+public class WriteBehindQueueTest {
+
+  public static void main(String[] args) {
+    Logger.setOutput(Logger.OutputType.NONE);
+    runtimeFailureRetriesOneByOne();
+    footprintsLiveUntilCommit();
+    System.out.println("WriteBehindQueueTest: OK");
+  }
+
+  static void runtimeFailureRetriesOneByOne() {
+    List<String> applied = Collections.synchronizedList(new ArrayList<>());
+    List<String> callbacks = Collections.synchronizedList(new ArrayList<>());
+    // Як транзакція SQLite: або всі записи групи, або жоден.
+    WriteBehindQueue.Committer committer =
+        batch -> {
+          List<String> staged = new ArrayList<>();
+          for (WriteBehindQueue.Write write : batch) {
+            write.apply();
+            staged.add("ok");
+          }
+          applied.addAll(staged);
+        };
+    WriteBehindQueue queue = new WriteBehindQueue(8, 10_000, committer);
+    try {
+      queue.submit("write a", PendingFootprints.Footprint.NONE, () -> {}, () -> callbacks.add("a"));
+      queue.submit(
+          "write poison",
+          PendingFootprints.Footprint.NONE,
+          () -> {
+            throw new IllegalStateException("poison");
+          },
+          () -> callbacks.add("poison"));
+      queue.submit("write b", PendingFootprints.Footprint.NONE, () -> {}, () -> callbacks.add("b"));
+      queue.flush();
+
+      check(queue.pending() == 0, "flush returned with writes still queued");
+      check(queue.dropped() == 1, "expected one dropped write, got " + queue.dropped());
+      check(applied.size() == 2, "healthy writes lost with the group: " + applied);
+      check(callbacks.equals(List.of("a", "b")), "callbacks ran for " + callbacks);
+    } finally {
+      queue.close();
+    }
+  }
+
+  static void footprintsLiveUntilCommit() {
+    List<Integer> commits = Collections.synchronizedList(new ArrayList<>());
+    WriteBehindQueue queue =
+        new WriteBehindQueue(
+            8,
+            60_000,
+            batch -> {
+              for (WriteBehindQueue.Write write : batch) {
+                write.apply();
+              }
+              commits.add(batch.size());
+            });
+    try {
+      queue.submit(
+          "delete fired", PendingFootprints.Footprint.delete(List.of(1)), () -> {}, null);
+      PendingFootprints pending = queue.footprints();
+      check(pending.touchesIds(List.of(1)), "pending delete has no footprint");
+      check(commits.isEmpty(), "taking a footprint snapshot forced a commit");
+
+      queue.flush();
+      check(commits.equals(List.of(1)), "flush did not commit the group: " + commits);
+      check(queue.footprints().isEmpty(), "footprint outlived its commit");
+      check(pending.touchesIds(List.of(1)), "snapshot changed after the commit");
+    } finally {
+      queue.close();
+    }
+  }
+
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package scheduling;
+
+import db.InMemoryNotificationStore;
+import java.util.ArrayList;
+import java.util.List;
+import logger.Logger;
+import structures.NotificationInfo;
+
+/**
+ * Відбиток відповіді сервера: зміна будь-якого поля, що потрапляє в SQLite, має дійти до сховища.
+ *
+ * <pre>
+ * java -cp out scheduling.RemoteSyncerTest
+ * </pre>
+ */
+public class RemoteSyncerTest {
+  private static final long FIRE_AT = 1_700_000_000L;
+
+  public static void main(String[] args) {
+    Logger.setOutput(Logger.OutputType.NONE);
+    recurrenceOnlyChangeReachesStore();
+    unchangedResponseSkipsUpsert();
+    runtimeFailureCountsAndBacksOff();
+    System.out.println("RemoteSyncerTest: OK");
+  }
+
+  static void recurrenceOnlyChangeReachesStore() {
+    List<NotificationInfo> remote = new ArrayList<>();
+    remote.add(new NotificationInfo(0, 3, "standup", null, FIRE_AT, "every:1d"));
+    InMemoryNotificationStore db = new InMemoryNotificationStore();
+    RemoteSyncer syncer = syncer(remote, db, new ArrayList<>());
+
+    syncer.syncNow();
+    check("every:1d".equals(db.getNotificationByWebId(3).getRecurrence()), "rule not stored");
+
+    remote.set(0, new NotificationInfo(0, 3, "standup", null, FIRE_AT, "every:1w"));
+    syncer.syncNow();
+    check("every:1w".equals(db.getNotificationByWebId(3).getRecurrence()), "edited rule ignored");
+
+    remote.set(0, new NotificationInfo(0, 3, "standup", null, FIRE_AT, null));
+    syncer.syncNow();
+    check(!db.getNotificationByWebId(3).isRecurring(), "removed rule ignored");
+    check(syncer.stats().unchangedFetches() == 0, "rule change counted as unchanged");
+  }
+
+  static void unchangedResponseSkipsUpsert() {
+    List<NotificationInfo> remote = new ArrayList<>();
+    remote.add(new NotificationInfo(0, 4, "review", null, FIRE_AT, "every:1d"));
+    List<List<NotificationInfo>> handoffs = new ArrayList<>();
+    RemoteSyncer syncer = syncer(remote, new InMemoryNotificationStore(), handoffs);
+
+    syncer.syncNow();
+    syncer.syncNow();
+    check(handoffs.size() == 1, "unchanged response upserted again");
+    check(syncer.stats().unchangedFetches() == 1, "unchanged response not counted");
+  }
+
+  static void runtimeFailureCountsAndBacksOff() {
+    List<NotificationInfo> remote = new ArrayList<>();
+    remote.add(new NotificationInfo(0, 5, "retro", null, FIRE_AT));
+    boolean[] broken = {true};
+    AdaptiveSyncPolicy policy = new AdaptiveSyncPolicy(1_000, 60_000, 1_000);
+    InMemoryNotificationStore db = new InMemoryNotificationStore();
+    RemoteSyncer syncer =
+        new RemoteSyncer(
+            () -> {
+              if (broken[0]) {
+                throw new NumberFormatException("For input string: \"soon\"");
+              }
+              return copies(remote);
+            },
+            db,
+            stored -> {},
+            new RemoteTombstones(),
+            policy,
+            () -> Long.MAX_VALUE,
+            0);
+
+    syncer.syncNow();
+    check(syncer.stats().failures() == 1, "parse failure not counted");
+    check(syncer.stats().durationMillis().count() == 1, "failed attempt duration not recorded");
+    check(policy.currentIntervalMillis() == 2_000, "policy did not back off after a failure");
+
+    broken[0] = false;
+    syncer.syncNow();
+    check(db.getNotificationByWebId(5) != null, "sync did not recover after a failure");
+    check(policy.currentIntervalMillis() == 1_000, "interval not reset after recovery");
+  }
+
+  private static RemoteSyncer syncer(
+      List<NotificationInfo> remote,
+      InMemoryNotificationStore db,
+      List<List<NotificationInfo>> handoffs) {
+    return new RemoteSyncer(
+        () -> copies(remote),
+        db,
+        handoffs::add,
+        new RemoteTombstones(),
+        new AdaptiveSyncPolicy(1_000, 60_000, 1_000),
+        () -> Long.MAX_VALUE,
+        0);
+  }
+
+  private static List<NotificationInfo> copies(List<NotificationInfo> remote) {
+    List<NotificationInfo> copies = new ArrayList<>();
+    for (NotificationInfo n : remote) {
+      copies.add(
+          new NotificationInfo(
+              0, n.getWebId(), n.getTitle(), n.getPayload(), n.getFireAt(), n.getRecurrence()));
+    }
+    return copies;
+  }
+
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+}
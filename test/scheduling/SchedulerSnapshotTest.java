@@ -0,0 +1,100 @@
+package scheduling;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import logger.Logger;
+import structures.NotificationInfo;
+
+/**
+ * Обрізаний чи зіпсований знімок повертає {@code null}, а не виняток у потоці годинника.
+ *
+ * <pre>
+ * java -cp out scheduling.SchedulerSnapshotTest
+ * </pre>
+ */
+public class SchedulerSnapshotTest {
+
+  public static void main(String[] args) throws IOException {
+    Logger.setOutput(Logger.OutputType.NONE);
+    Path dir = Files.createTempDirectory("snapshot-test");
+    try {
+      roundTrip(dir.resolve("ok.snapshot"));
+      truncatedFileIsIgnored(dir.resolve("truncated.snapshot"));
+      hugeWindowSizeIsIgnored(dir.resolve("huge.snapshot"));
+    } finally {
+      try (var files = Files.list(dir)) {
+        for (Path file : files.toList()) {
+          Files.deleteIfExists(file);
+        }
+      }
+      Files.deleteIfExists(dir);
+    }
+    System.out.println("SchedulerSnapshotTest: OK");
+  }
+
+  static void roundTrip(Path path) {
+    sample().save(path);
+    SchedulerSnapshot loaded = SchedulerSnapshot.load(path);
+    check(loaded != null, "valid snapshot rejected");
+    check(loaded.changeCount() == 42, "change counter not restored");
+    check(loaded.window().size() == 2, "window not restored");
+    check("daily".equals(loaded.window().get(1).getRecurrence()), "recurrence not restored");
+  }
+
+  static void truncatedFileIsIgnored(Path path) throws IOException {
+    sample().save(path);
+    byte[] bytes = Files.readAllBytes(path);
+    for (int length = 0; length < bytes.length; length++) {
+      Files.write(path, Arrays.copyOf(bytes, length));
+      check(SchedulerSnapshot.load(path) == null, "truncated snapshot accepted at " + length);
+    }
+  }
+
+  static void hugeWindowSizeIsIgnored(Path path) throws IOException {
+    for (int size : new int[] {-1, Integer.MAX_VALUE}) {
+      try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(path))) {
+        out.writeInt(0x4E534E50);
+        out.writeInt(4);
+        for (int i = 0; i < 5; i++) {
+          out.writeLong(0);
+        }
+        out.writeInt(0);
+        out.writeBoolean(false);
+        for (int i = 0; i < 3; i++) {
+          out.writeLong(0);
+        }
+        out.writeByte(-1);
+        out.writeInt(size);
+      }
+      check(SchedulerSnapshot.load(path) == null, "window size " + size + " accepted");
+    }
+  }
+
+  private static SchedulerSnapshot sample() {
+    return new SchedulerSnapshot(
+        1_700_000_000_000L,
+        2,
+        2,
+        42,
+        List.of(
+            new NotificationInfo(1, 0, "once", "payload", 1_700_000_010L),
+            new NotificationInfo(2, 5, "every day", null, 1_700_000_020L, "daily")),
+        1_700_000_020L,
+        2,
+        true,
+        0,
+        0,
+        60_000,
+        Boolean.TRUE);
+  }
+
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package structures;
+
+/**
+ * Конфлікт {@code fire_at} під час синхронізації вирішується однаково для секунд і мілісекунд.
+ *
+ * <pre>
+ * java -cp out structures.NotificationInfoTest
+ * </pre>
+ */
+public class NotificationInfoTest {
+  private static final long FIRE_AT = 1_700_000_000L;
+
+  public static void main(String[] args) {
+    keepsLocallyAdvancedOccurrence();
+    comparesAcrossUnits();
+    takesRemoteWhenRuleChanges();
+    System.out.println("NotificationInfoTest: OK");
+  }
+
+  static void keepsLocallyAdvancedOccurrence() {
+    NotificationInfo stored = new NotificationInfo(1, 9, "t", null, FIRE_AT + 86_400, "every:1d");
+    NotificationInfo remote = new NotificationInfo(0, 9, "t", null, FIRE_AT, "every:1d");
+    check(NotificationInfo.syncedFireAt(stored, remote) == FIRE_AT + 86_400, "advance rolled back");
+  }
+
+  static void comparesAcrossUnits() {
+    // Локальний рядок у секундах уже пізніший за серверний у мілісекундах.
+    NotificationInfo stored = new NotificationInfo(1, 9, "t", null, FIRE_AT + 60, "every:1m");
+    NotificationInfo remote = new NotificationInfo(0, 9, "t", null, FIRE_AT * 1000, "every:1m");
+    check(NotificationInfo.syncedFireAt(stored, remote) == FIRE_AT + 60, "seconds lost to millis");
+
+    // І навпаки: серверний у секундах пізніший за локальний у мілісекундах.
+    stored = new NotificationInfo(1, 9, "t", null, FIRE_AT * 1000, "every:1m");
+    remote = new NotificationInfo(0, 9, "t", null, FIRE_AT + 60, "every:1m");
+    check(NotificationInfo.syncedFireAt(stored, remote) == FIRE_AT + 60, "millis beat later seconds");
+  }
+
+  static void takesRemoteWhenRuleChanges() {
+    NotificationInfo stored = new NotificationInfo(1, 9, "t", null, FIRE_AT + 86_400, "every:1d");
+    NotificationInfo remote = new NotificationInfo(0, 9, "t", null, FIRE_AT, "every:1w");
+    check(NotificationInfo.syncedFireAt(stored, remote) == FIRE_AT, "edited rule ignored");
+    check(
+        NotificationInfo.syncedFireAt(stored, new NotificationInfo(0, 9, "t", null, FIRE_AT))
+            == FIRE_AT,
+        "one-shot kept the old occurrence");
+  }
+
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+}
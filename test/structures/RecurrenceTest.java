@@ -0,0 +1,61 @@
+package structures;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+
+/**
+ * Cron-правило під час переведення годинника назад: наступне спрацювання завжди строго пізніше.
+ *
+ * <pre>
+ * java -cp out structures.RecurrenceTest
+ * </pre>
+ */
+public class RecurrenceTest {
+  private static final ZoneId KYIV = ZoneId.of("Europe/Kyiv");
+
+  public static void main(String[] args) {
+    secondPassOfRepeatedHourMovesForward();
+    firstPassOfRepeatedHourKeepsEarlierOffset();
+    everyMinuteThroughFallBackIsStrictlyIncreasing();
+    System.out.println("RecurrenceTest: OK");
+  }
+
+  static void secondPassOfRepeatedHourMovesForward() {
+    // 25.10.2026 о 04:00 EEST годинник у Києві переводять на 03:00 EET.
+    long after = millis("2026-10-25T03:30+02:00");
+    long next = Recurrence.parse("cron:* * * * *").nextAfter(after, after, KYIV);
+    check(next == millis("2026-10-25T03:31+02:00"), "expected 03:31 EET, got " + instant(next));
+  }
+
+  static void firstPassOfRepeatedHourKeepsEarlierOffset() {
+    long after = millis("2026-10-25T03:30+03:00");
+    long next = Recurrence.parse("cron:* * * * *").nextAfter(after, after, KYIV);
+    check(next == millis("2026-10-25T03:31+03:00"), "expected 03:31 EEST, got " + instant(next));
+  }
+
+  static void everyMinuteThroughFallBackIsStrictlyIncreasing() {
+    Recurrence rule = Recurrence.parse("cron:* * * * *");
+    long at = millis("2026-10-25T02:50+03:00");
+    for (int i = 0; i < 200; i++) {
+      long next = rule.nextAfter(at, at, KYIV);
+      check(next > at, "next " + instant(next) + " is not after " + instant(at));
+      at = next;
+    }
+    check(at > millis("2026-10-25T04:00+02:00"), "stuck inside the repeated hour at " + instant(at));
+  }
+
+  private static long millis(String offsetDateTime) {
+    return OffsetDateTime.parse(offsetDateTime).toInstant().toEpochMilli();
+  }
+
+  private static String instant(long millis) {
+    return Instant.ofEpochMilli(millis).atZone(KYIV).toString();
+  }
+
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+}